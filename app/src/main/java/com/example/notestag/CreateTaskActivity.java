@@ -2,36 +2,42 @@ package com.example.notestag;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.Button;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.notestag.metrics.Metrics;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 public class CreateTaskActivity extends AppCompatActivity {
 
     public static final String EXTRA_NEW_TASK = "extra_new_task";
 
+    private static final int SUGGESTION_COUNT = 5;
+
     private TextInputEditText editTitle;
     private TextInputEditText editDescription;
     private TextInputEditText editCustomTagGroup;
     private TextInputEditText editCustomTagName;
-    private LinearLayout layoutTagGroupsContainer;
     private ChipGroup chipGroupStatus;
+    private ChipGroup chipGroupSuggestions;
+    private TextView textSuggestedTags;
 
-    // Храним соответствие "название группы" -> ChipGroup с тегами
-    private final Map<String, ChipGroup> tagGroups = new LinkedHashMap<>();
+    // Группы, теги и выбранные id; на экране их показывает tagAdapter
+    private final TagPickerModel tagModel = new TagPickerModel();
+    private TagPickerAdapter tagAdapter;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -43,12 +49,15 @@ public class CreateTaskActivity extends AppCompatActivity {
         editDescription = findViewById(R.id.editDescription);
         editCustomTagGroup = findViewById(R.id.editCustomTagGroup);
         editCustomTagName = findViewById(R.id.editCustomTagName);
-        layoutTagGroupsContainer = findViewById(R.id.layoutTagGroupsContainer);
         chipGroupStatus = findViewById(R.id.chipGroupStatus);
+        chipGroupSuggestions = findViewById(R.id.chipGroupSuggestions);
+        textSuggestedTags = findViewById(R.id.textSuggestedTags);
         Button buttonSave = findViewById(R.id.buttonSave);
         Button buttonAddTag = findViewById(R.id.buttonAddTag);
 
-        setupDefaultTagGroups();
+        setupTagGroups();
+        setupTagPicker();
+        setupSuggestions();
         setupStatusChips();
 
         buttonSave.setOnClickListener(new View.OnClickListener() {
@@ -67,63 +76,128 @@ public class CreateTaskActivity extends AppCompatActivity {
     }
 
     /**
-     * Создаём преднастроенные группы и теги:
-     * - Важность
-     * - Срочность
-     * - Сфера
+     * Группы и теги берём из общего словаря: встроенные (важность, срочность, сфера),
+     * свои из каталога и встреченные в задачах – в порядке их id.
      */
-    private void setupDefaultTagGroups() {
-        // Важность
-        addTagToGroup("Важность", "Низкая");
-        addTagToGroup("Важность", "Средняя");
-        addTagToGroup("Важность", "Высокая");
-        addTagToGroup("Важность", "Критическая");
-
-        // Срочность
-        addTagToGroup("Срочность", "Не срочно");
-        addTagToGroup("Срочность", "Срочно");
-        addTagToGroup("Срочность", "Горит");
-
-        // Сфера
-        addTagToGroup("Сфера", "Работа");
-        addTagToGroup("Сфера", "Личное");
-        addTagToGroup("Сфера", "Дом");
-        addTagToGroup("Сфера", "Покупки");
-        addTagToGroup("Сфера", "Здоровье");
-        addTagToGroup("Сфера", "Финансы");
-        addTagToGroup("Сфера", "Обучение");
+    private void setupTagGroups() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int size = dictionary.size();
+        for (int id = 0; id < size; id++) {
+            tagModel.addTag(dictionary.getGroup(id), dictionary.getName(id));
+        }
     }
 
     /**
-     * Добавляет тег в указанную группу. Если группы нет – создаёт заголовок и ChipGroup.
+     * Добавляет тег в указанную группу модели; пустая группа – "Без группы".
      */
     private void addTagToGroup(String groupName, String tagName) {
         if (groupName == null || groupName.trim().isEmpty()) {
             groupName = getString(R.string.group_without_name);
         }
-        groupName = groupName.trim();
-
-        ChipGroup chipGroup = tagGroups.get(groupName);
-        if (chipGroup == null) {
-            // Создаём заголовок группы
-            TextView titleView = new TextView(this);
-            titleView.setText(groupName);
-            titleView.setTextSize(14f);
-            titleView.setPadding(0, dpToPx(12), 0, dpToPx(4));
-            layoutTagGroupsContainer.addView(titleView);
-
-            // Создаём ChipGroup для этой группы
-            chipGroup = new ChipGroup(this);
-            chipGroup.setSingleSelection(false);
-            layoutTagGroupsContainer.addView(chipGroup);
-
-            tagGroups.put(groupName, chipGroup);
+        tagModel.addTag(groupName.trim(), tagName);
+        if (tagAdapter != null) {
+            tagAdapter.notifyDataSetChanged();
+        }
+    }
+
+    private void setupTagPicker() {
+        final int spanCount = 3;
+        RecyclerView recyclerTags = findViewById(R.id.recyclerTags);
+        GridLayoutManager layoutManager = new GridLayoutManager(this, spanCount);
+        tagAdapter = new TagPickerAdapter(tagModel);
+        layoutManager.setSpanSizeLookup(tagAdapter.spanSizeLookup(spanCount));
+        recyclerTags.setLayoutManager(layoutManager);
+        recyclerTags.setAdapter(tagAdapter);
+
+        // Фильтр по мере набора: по названию тега или группы
+        TextInputEditText editTagFilter = findViewById(R.id.editTagFilter);
+        editTagFilter.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                tagModel.setFilter(s.toString());
+                tagAdapter.notifyDataSetChanged();
+            }
+        });
+    }
+
+    /**
+     * Подсказки обновляются на каждое нажатие клавиши в названии: TagSuggester отвечает
+     * из готового снимка, поэтому считаем прямо на UI-потоке.
+     */
+    private void setupSuggestions() {
+        editTitle.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                updateSuggestions();
+            }
+        });
+    }
+
+    private void updateSuggestions() {
+        String title = editTitle.getText() != null ? editTitle.getText().toString() : "";
+        List<Integer> suggested = title.trim().isEmpty()
+                ? new ArrayList<>()
+                : TagSuggester.getInstance().suggest(title, selectedTagIds(), SUGGESTION_COUNT);
+        // Чипы переиспользуем: набор подсказок меняется почти на каждой клавише
+        TagDictionary dictionary = TagDictionary.getInstance();
+        for (int i = 0; i < suggested.size(); i++) {
+            Chip chip;
+            if (i < chipGroupSuggestions.getChildCount()) {
+                chip = (Chip) chipGroupSuggestions.getChildAt(i);
+            } else {
+                chip = new Chip(this);
+                chip.setOnClickListener(v -> acceptSuggestion((Integer) v.getTag()));
+                chipGroupSuggestions.addView(chip);
+            }
+            int tagId = suggested.get(i);
+            chip.setTag(tagId);
+            chip.setText(dictionary.getName(tagId));
+        }
+        if (chipGroupSuggestions.getChildCount() > suggested.size()) {
+            chipGroupSuggestions.removeViews(suggested.size(),
+                    chipGroupSuggestions.getChildCount() - suggested.size());
         }
+        int visibility = suggested.isEmpty() ? View.GONE : View.VISIBLE;
+        chipGroupSuggestions.setVisibility(visibility);
+        textSuggestedTags.setVisibility(visibility);
+    }
 
-        Chip chip = new Chip(this);
-        chip.setText(tagName);
-        chip.setCheckable(true);
-        chipGroup.addView(chip);
+    private void acceptSuggestion(int tagId) {
+        tagModel.setSelected(tagId, true);
+        tagAdapter.notifyDataSetChanged();
+        updateSuggestions();
+    }
+
+    private List<Integer> selectedTagIds() {
+        int[] ids = tagModel.getSelectedIds();
+        List<Integer> selected = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            selected.add(id);
+        }
+        return selected;
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Свои теги сохраняем сразу, даже если задачу так и не создали
+        NotesTagApp.get(this).saveTagCatalog();
     }
 
     private void addCustomTagFromInputs() {
@@ -177,21 +251,7 @@ public class CreateTaskActivity extends AppCompatActivity {
             return;
         }
 
-        List<String> selectedTags = new ArrayList<>();
-        // Проходим по всем группам и собираем отмеченные теги
-        for (ChipGroup group : tagGroups.values()) {
-            int count = group.getChildCount();
-            for (int i = 0; i < count; i++) {
-                View child = group.getChildAt(i);
-                if (child instanceof Chip) {
-                    Chip chip = (Chip) child;
-                    if (chip.isChecked()) {
-                        selectedTags.add(chip.getText().toString());
-                    }
-                }
-            }
-        }
-
+        long start = Metrics.begin("CreateTaskActivity.saveTask");
         int status = Task.STATUS_NOT_STARTED;
         int checkedId = chipGroupStatus.getCheckedChipId();
         if (checkedId != View.NO_ID) {
@@ -208,17 +268,15 @@ public class CreateTaskActivity extends AppCompatActivity {
             }
         }
 
-        Task task = new Task(title, description, selectedTags);
+        // Выбор берём из модели, не обходя чипы
+        int[] tagIds = tagModel.getSelectedIds();
+
+        Task task = new Task(title, description, tagIds);
         task.setStatus(status);
         Intent result = new Intent();
-        result.putExtra(EXTRA_NEW_TASK, task);
+        result.putExtra(EXTRA_NEW_TASK, new ParcelableTask(task));
+        Metrics.end(Metrics.TASK_CREATE_TIME, start);
         setResult(RESULT_OK, result);
         finish();
     }
-
-    private int dpToPx(int dp) {
-        float density = getResources().getDisplayMetrics().density;
-        return Math.round(dp * density);
-    }
 }
-
@@ -1,55 +1,127 @@
 package com.example.notestag;
 
+import android.content.Context;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.notestag.metrics.Metrics;
+import com.example.notestag.store.TaskStore;
+import com.example.notestag.store.TaskTransfer;
+import com.example.notestag.store.ViewSnapshot;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.textfield.TextInputEditText;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
     private static final int REQUEST_CREATE_TASK = 1;
+    private static final int REQUEST_IMPORT = 2;
+    private static final int REQUEST_EXPORT = 3;
+    private static final String EXPORT_MIME_TYPE = "application/x-ndjson";
 
-    private static final int SORT_BY_DATE = 0;
-    private static final int SORT_BY_IMPORTANCE = 1;
-    private static final int SORT_BY_URGENCY = 2;
-    private static final int SORT_BY_TITLE = 3;
-    private static final int SORT_BY_SPHERE = 4;
-
-    private final List<Task> allTasks = new ArrayList<>();
+    private final TaskIndex taskIndex = new TaskIndex();
     private final List<Task> visibleTasks = new ArrayList<>();
-    private final List<String> activeFilterTags = new ArrayList<>();
-    private int currentSort = SORT_BY_DATE;
+    private final Set<Integer> activeFilterTags = new LinkedHashSet<>();
+    // Счётчики тегов по видимому списку – для диалога фильтра
+    private TagFacets visibleFacets = new TagFacets();
+    private int currentSort = TaskSorter.SORT_BY_DATE;
+    private String searchText = "";
 
     private TaskAdapter adapter;
+    private TaskStore taskStore;
+    private TaskRepository repository;
+    private TaskQueryEngine queryEngine;
+    private File directory;
+    // Загрузка, импорт, экспорт и закрытие журнала – на общем потоке NotesTagApp: загрузка
+    // в пересозданной активности ждёт, пока прежняя закроет свой TaskStore
+    private ExecutorService ioExecutor;
+    // До конца фоновой загрузки на экране строки из снимка, а действия со списком выключены
+    private boolean loaded;
+    // Изменения списка, пришедшие до конца загрузки (результаты других экранов), – репозиторий
+    // в это время заполняется в фоне, поэтому они ждут onTasksLoaded
+    private final List<Runnable> pendingUntilLoaded = new ArrayList<>();
+    private boolean fullyDrawnReported;
+    private View[] listActions;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Метрики и секции Trace включаем только в отладочной сборке
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            Metrics.setTracer(new Metrics.Tracer() {
+                @Override
+                public void begin(String section) {
+                    Trace.beginSection(section);
+                }
+
+                @Override
+                public void end() {
+                    Trace.endSection();
+                }
+            });
+            Metrics.setEnabled(true);
+        }
         setContentView(R.layout.activity_main);
         setTitle(R.string.main_title);
 
+        queryEngine = new TaskQueryEngine(taskIndex, ContextCompat.getMainExecutor(this));
+        ioExecutor = NotesTagApp.get(this).getIoExecutor();
+
         RecyclerView recyclerView = findViewById(R.id.recyclerTasks);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new TaskAdapter(this, visibleTasks, task -> {
-            allTasks.remove(task);
-            applyFiltersAndSort();
+        adapter = new TaskAdapter(this, new TaskAdapter.TaskActionListener() {
+            @Override
+            public void onTaskCompleted(Task task) {
+                Task live = liveTask(task);
+                if (live != null) {
+                    repository.remove(live);
+                }
+            }
+
+            @Override
+            public void onTaskStatusChanged(Task task) {
+                Task live = liveTask(task);
+                if (live != null) {
+                    repository.setStatus(live, task.getStatus());
+                }
+            }
         });
         recyclerView.setAdapter(adapter);
 
@@ -58,6 +130,33 @@ public class MainActivity extends AppCompatActivity {
 
         buttonFilter.setOnClickListener(v -> openFilterDialog());
         buttonSort.setOnClickListener(v -> openSortDialog());
+        if (Metrics.isEnabled()) {
+            // Отладочный отчёт по метрикам – долгое нажатие на "Сортировка"
+            buttonSort.setOnLongClickListener(v -> {
+                showMetrics();
+                return true;
+            });
+        }
+        findViewById(R.id.buttonImport).setOnClickListener(v -> openImport());
+        findViewById(R.id.buttonExport).setOnClickListener(v -> openExport());
+
+        // Поиск по мере набора: каждый символ перезапускает запрос, устаревшие отбрасываются
+        TextInputEditText editSearch = findViewById(R.id.editSearch);
+        editSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchText = s.toString();
+                applyFiltersAndSort();
+            }
+        });
 
         // свайп вправо с красным крестиком для удаления
         ItemTouchHelper.SimpleCallback swipeCallback = new ItemTouchHelper.SimpleCallback(0, ItemTouchHelper.RIGHT) {
@@ -66,13 +165,18 @@ public class MainActivity extends AppCompatActivity {
                 return false;
             }
 
+            @Override
+            public int getSwipeDirs(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+                return loaded ? super.getSwipeDirs(recyclerView, viewHolder) : 0;
+            }
+
             @Override
             public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
                 int position = viewHolder.getAdapterPosition();
-                if (position >= 0 && position < visibleTasks.size()) {
-                    Task task = visibleTasks.get(position);
-                    allTasks.remove(task);
-                    applyFiltersAndSort();
+                Task live = position >= 0 && position < adapter.getItemCount()
+                        ? liveTask(adapter.getItem(position)) : null;
+                if (live != null) {
+                    repository.remove(live);
                 }
             }
         };
@@ -80,6 +184,147 @@ public class MainActivity extends AppCompatActivity {
 
         FloatingActionButton fabAddTask = findViewById(R.id.fabAddTask);
         fabAddTask.setOnClickListener(v -> openCreateTask());
+
+        listActions = new View[]{buttonFilter, buttonSort, findViewById(R.id.buttonImport),
+                findViewById(R.id.buttonExport), fabAddTask};
+        showSnapshot(recyclerView);
+        loadTasks();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Теги могли появиться из новых задач или импорта
+        NotesTagApp.get(this).saveTagCatalog();
+        saveSnapshot();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        queryEngine.shutdown();
+        adapter.shutdown();
+        // После уже поставленных загрузки и импорта, но до загрузки в новой активности
+        ioExecutor.execute(this::closeTaskStore);
+    }
+
+    private void closeTaskStore() {
+        try {
+            taskStore.close();
+        } catch (IOException e) {
+            // Активность уже закрыта – сообщаем через контекст приложения
+            Log.e(TAG, "Failed to save tasks", e);
+            Context app = getApplicationContext();
+            ContextCompat.getMainExecutor(app).execute(() ->
+                    Toast.makeText(app, R.string.store_failed, Toast.LENGTH_LONG).show());
+        }
+    }
+
+    /**
+     * Первый экран – из маленького снимка верха списка, сохранённого при прошлом уходе
+     * с экрана. Каталог тегов к этому времени уже прочитан в NotesTagApp.
+     */
+    private void showSnapshot(RecyclerView recyclerView) {
+        directory = NotesTagApp.get(this).getDirectory();
+        setListActionsEnabled(false);
+        ViewSnapshot snapshot = ViewSnapshot.read(directory);
+        if (snapshot == null) {
+            return;
+        }
+        currentSort = snapshot.getSortMode();
+        activeFilterTags.addAll(snapshot.getFilterTags());
+        adapter.submitList(snapshot.getTasks());
+        recyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                Metrics.STARTUP_FIRST_ROW.record(sinceProcessStartNanos());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Журнал задач и индексы строятся в фоне; готовый список подменяет снимок через
+     * обычный дифф по id, так что совпавшие строки остаются на месте.
+     */
+    private void loadTasks() {
+        taskStore = new TaskStore(directory);
+        taskStore.setFailureListener(e -> {
+            Log.e(TAG, "Failed to write tasks", e);
+            runOnUiThread(() -> showTransferResult(getString(R.string.store_failed)));
+        });
+        // Изменения за кадр доходят до списка одним вызовом onTasksChanged
+        repository = new TaskRepository(taskIndex, taskStore,
+                command -> Choreographer.getInstance().postFrameCallback(frameTimeNanos -> command.run()));
+        repository.setListener(this::onTasksChanged);
+        // До onTasksLoaded UI-поток репозиторий и индекс не трогает
+        ioExecutor.execute(() -> {
+            List<Task> tasks;
+            try {
+                tasks = taskStore.load();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load tasks", e);
+                tasks = Collections.emptyList();
+            }
+            repository.load(tasks);
+            TagSuggester.getInstance().rebuild(tasks);
+            runOnUiThread(this::onTasksLoaded);
+        });
+    }
+
+    private void onTasksLoaded() {
+        if (isDestroyed()) {
+            return;
+        }
+        loaded = true;
+        setListActionsEnabled(true);
+        applyFiltersAndSort();
+        for (Runnable action : pendingUntilLoaded) {
+            action.run();
+        }
+        pendingUntilLoaded.clear();
+    }
+
+    /**
+     * Задача репозитория для строки списка. Пока первый запрос после загрузки не подменил
+     * строки снимка (дифф адаптера ещё в пути), в строках лежат копии из ViewSnapshot:
+     * repository.remove/setStatus узнают задачу по объекту и копию бы молча пропустили.
+     */
+    @Nullable
+    private Task liveTask(Task row) {
+        return repository.get(row.getId());
+    }
+
+    private void whenLoaded(Runnable action) {
+        if (loaded) {
+            action.run();
+        } else {
+            pendingUntilLoaded.add(action);
+        }
+    }
+
+    private void setListActionsEnabled(boolean enabled) {
+        for (View view : listActions) {
+            view.setEnabled(enabled);
+        }
+        adapter.setInteractive(enabled);
+    }
+
+    private void saveSnapshot() {
+        // Снимок с поиском не пригодится: при холодном старте поле поиска пустое
+        if (!loaded || !searchText.trim().isEmpty()) {
+            return;
+        }
+        try {
+            ViewSnapshot.write(directory, currentSort, activeFilterTags, visibleTasks);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save view snapshot", e);
+        }
+    }
+
+    private static long sinceProcessStartNanos() {
+        return (SystemClock.uptimeMillis() - Process.getStartUptimeMillis()) * 1_000_000L;
     }
 
     private void openCreateTask() {
@@ -91,132 +336,245 @@ public class MainActivity extends AppCompatActivity {
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == REQUEST_CREATE_TASK && resultCode == RESULT_OK && data != null) {
-            Task newTask = (Task) data.getSerializableExtra(CreateTaskActivity.EXTRA_NEW_TASK);
+            ParcelableTask newTask = data.getParcelableExtra(CreateTaskActivity.EXTRA_NEW_TASK);
             if (newTask != null) {
-                allTasks.add(newTask);
-                applyFiltersAndSort();
+                Task task = newTask.getTask();
+                whenLoaded(() -> repository.add(task));
             }
+        } else if (requestCode == REQUEST_IMPORT && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            Uri uri = data.getData();
+            whenLoaded(() -> importTasks(uri));
+        } else if (requestCode == REQUEST_EXPORT && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            Uri uri = data.getData();
+            whenLoaded(() -> exportTasks(uri));
         }
     }
 
-    private void applyFiltersAndSort() {
-        visibleTasks.clear();
-        // фильтрация по выбранным тегам
-        for (Task task : allTasks) {
-            if (matchesFilter(task)) {
-                visibleTasks.add(task);
+    private void openImport() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        startActivityForResult(intent, REQUEST_IMPORT);
+    }
+
+    private void openExport() {
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(EXPORT_MIME_TYPE);
+        intent.putExtra(Intent.EXTRA_TITLE, "tasks.jsonl");
+        startActivityForResult(intent, REQUEST_EXPORT);
+    }
+
+    /**
+     * Файл читается в фоне, задачи пачками уходят в репозиторий на UI-поток –
+     * индекс обновляется раз на пачку, список перестраивается раз за кадр. В пути не
+     * больше одной пачки: следующая читается, пока UI-поток добавляет предыдущую, но не
+     * отправляется, пока он её не применил, так что очередь UI-потока не растёт.
+     */
+    private void importTasks(Uri uri) {
+        ioExecutor.execute(() -> {
+            Semaphore inFlight = new Semaphore(1);
+            AtomicBoolean cancelled = new AtomicBoolean();
+            // Сообщаем, сколько задач попало в репозиторий, а не сколько строк прочитано
+            AtomicInteger added = new AtomicInteger();
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                TaskTransfer.importTasks(in, TaskTransfer.DEFAULT_CHUNK_SIZE, chunk -> {
+                    awaitApplied(inFlight, cancelled);
+                    runOnUiThread(() -> {
+                        if (isDestroyed()) {
+                            cancelled.set(true);
+                        } else {
+                            added.addAndGet(repository.addAll(chunk));
+                        }
+                        inFlight.release();
+                    });
+                });
+                awaitApplied(inFlight, cancelled);
+                runOnUiThread(() -> showTransferResult(getString(R.string.import_done, added.get())));
+            } catch (InterruptedIOException e) {
+                // Экран закрыли посреди импорта – остаток файла не читаем
+                Log.i(TAG, "Import stopped: " + e.getMessage());
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to import tasks", e);
+                runOnUiThread(() -> showTransferResult(getString(R.string.transfer_failed)));
             }
+        });
+    }
+
+    /**
+     * Ждёт, пока UI-поток применит отправленную пачку; если экран уже закрыт – прерывает импорт.
+     */
+    private static void awaitApplied(Semaphore inFlight, AtomicBoolean cancelled) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("import interrupted");
+        }
+        if (cancelled.get()) {
+            throw new InterruptedIOException("activity destroyed");
         }
+    }
 
-        // сортировка
-        Collections.sort(visibleTasks, getComparator());
-        adapter.notifyDataSetChanged();
+    private void exportTasks(Uri uri) {
+        List<Task> tasks = repository.getAll();
+        ioExecutor.execute(() -> {
+            try (OutputStream out = getContentResolver().openOutputStream(uri)) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                TaskTransfer.exportJsonLines(tasks, out);
+                runOnUiThread(() -> showTransferResult(getString(R.string.export_done, tasks.size())));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to export tasks", e);
+                runOnUiThread(() -> showTransferResult(getString(R.string.transfer_failed)));
+            }
+        });
     }
 
-    private boolean matchesFilter(Task task) {
-        if (activeFilterTags.isEmpty()) {
-            return true;
+    private void showMetrics() {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.metrics_title)
+                .setMessage(Metrics.dump() + queryEngine.getCache())
+                .setPositiveButton(android.R.string.ok, null)
+                .setNeutralButton(R.string.metrics_reset, (dialog, which) -> Metrics.reset())
+                .show();
+    }
+
+    private void showTransferResult(String message) {
+        if (!isDestroyed()) {
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
         }
-        List<String> tags = task.getTags();
-        for (String filterTag : activeFilterTags) {
-            if (!tags.contains(filterTag)) {
-                return false;
-            }
+    }
+
+    /**
+     * Одна добавленная или удалённая задача – бинарная вставка или удаление в уже
+     * отсортированном видимом списке. Пачка изменений – один перезапрос и один diff.
+     * Смена статуса влияет на список только через status: в строке поиска, строку адаптер
+     * уже перерисовал сам.
+     */
+    private void onTasksChanged(TaskRepository.Changes changes) {
+        queryEngine.onTasksChanged(changes.added, changes.removed);
+        if (!changes.added.isEmpty()) {
+            TagSuggester.getInstance().observe(changes.added);
         }
-        return true;
-    }
-
-    private Comparator<Task> getComparator() {
-        return (t1, t2) -> {
-            switch (currentSort) {
-                case SORT_BY_IMPORTANCE:
-                    return Integer.compare(getImportanceLevel(t2), getImportanceLevel(t1)); // по убыванию
-                case SORT_BY_URGENCY:
-                    return Integer.compare(getUrgencyLevel(t2), getUrgencyLevel(t1)); // по убыванию
-                case SORT_BY_TITLE:
-                    return t1.getTitle().compareToIgnoreCase(t2.getTitle());
-                case SORT_BY_SPHERE:
-                    return getSphere(t1).compareToIgnoreCase(getSphere(t2));
-                case SORT_BY_DATE:
-                default:
-                    return Long.compare(t2.getCreatedAt(), t1.getCreatedAt()); // новые сверху
+        if (!changes.removed.isEmpty()) {
+            TagSuggester.getInstance().forget(changes.removed);
+        }
+        int added = changes.added.size();
+        int removed = changes.removed.size();
+        if (added + removed == 0) {
+            if (!changes.updated.isEmpty() && !searchText.trim().isEmpty()) {
+                applyFiltersAndSort();
             }
-        };
+            return;
+        }
+        if (added + removed > 1 || queryEngine.isPending()) {
+            // Фоновый запрос мог уже пройти по индексу без этих изменений – перезапускаем
+            applyFiltersAndSort();
+        } else if (added == 1) {
+            addVisible(changes.added.get(0));
+        } else {
+            removeVisible(changes.removed.get(0));
+        }
     }
 
-    private int getImportanceLevel(Task task) {
-        // Низкая / Средняя / Высокая / Критическая
-        int level = -1;
-        for (String tag : task.getTags()) {
-            if ("Низкая".equalsIgnoreCase(tag)) level = Math.max(level, 0);
-            if ("Средняя".equalsIgnoreCase(tag)) level = Math.max(level, 1);
-            if ("Высокая".equalsIgnoreCase(tag)) level = Math.max(level, 2);
-            if ("Критическая".equalsIgnoreCase(tag)) level = Math.max(level, 3);
+    private void addVisible(Task task) {
+        if (!searchText.trim().isEmpty()) {
+            // Совпадение с поиском проще проверить тем же индексом
+            applyFiltersAndSort();
+            return;
         }
-        return level;
+        if (!task.hasAllTags(activeFilterTags)) {
+            return;
+        }
+        int position = TaskSorter.insertionPoint(visibleTasks, task, currentSort);
+        visibleTasks.add(position, task);
+        visibleFacets.add(task);
+        adapter.insertItem(position, task);
     }
 
-    private int getUrgencyLevel(Task task) {
-        // Не срочно / Срочно / Горит
-        int level = -1;
-        for (String tag : task.getTags()) {
-            if ("Не срочно".equalsIgnoreCase(tag)) level = Math.max(level, 0);
-            if ("Срочно".equalsIgnoreCase(tag)) level = Math.max(level, 1);
-            if ("Горит".equalsIgnoreCase(tag)) level = Math.max(level, 2);
+    private void removeVisible(Task task) {
+        int position = TaskSorter.indexOf(visibleTasks, task, currentSort);
+        if (position >= 0) {
+            visibleTasks.remove(position);
+            visibleFacets.remove(task);
+            adapter.removeItem(position);
         }
-        return level;
     }
 
-    private String getSphere(Task task) {
-        for (String tag : task.getTags()) {
-            if ("Работа".equalsIgnoreCase(tag)
-                    || "Личное".equalsIgnoreCase(tag)
-                    || "Дом".equalsIgnoreCase(tag)
-                    || "Покупки".equalsIgnoreCase(tag)
-                    || "Здоровье".equalsIgnoreCase(tag)
-                    || "Финансы".equalsIgnoreCase(tag)
-                    || "Обучение".equalsIgnoreCase(tag)) {
-                return tag;
-            }
+    /**
+     * Фильтрация по выбранным тегам и тексту поиска и сортировка идут в фоне, результат
+     * одним шагом подменяет видимый список на UI-потоке.
+     */
+    private void applyFiltersAndSort() {
+        if (!loaded) {
+            // Индекс ещё строится; запрос с текущими фильтром и поиском уйдёт после загрузки
+            return;
         }
-        return "";
+        queryEngine.submit(activeFilterTags, searchText, currentSort, (tasks, facets) -> {
+            visibleTasks.clear();
+            visibleTasks.addAll(tasks);
+            visibleFacets = facets;
+            adapter.submitList(tasks);
+            if (!fullyDrawnReported) {
+                fullyDrawnReported = true;
+                Metrics.STARTUP_INTERACTIVE.record(sinceProcessStartNanos());
+                reportFullyDrawn();
+            }
+        });
     }
 
     private void openFilterDialog() {
-        // Собираем список всех тегов из задач
-        Set<String> allTagsSet = new HashSet<>();
-        for (Task task : allTasks) {
-            allTagsSet.addAll(task.getTags());
-        }
-        final String[] allTags = allTagsSet.toArray(new String[0]);
-
+        // Теги, которые есть хотя бы у одной задачи, – из индекса, счётчики – из visibleFacets,
+        // так что диалог строится за O(число тегов) независимо от числа задач
+        long start = Metrics.begin("MainActivity.openFilterDialog");
+        final TagDictionary dictionary = TagDictionary.getInstance();
+        final List<Integer> allTagIds = taskIndex.tagIds();
+        allTagIds.sort((a, b) -> {
+            int byGroup = Integer.compare(dictionary.getGroupOrdinal(a), dictionary.getGroupOrdinal(b));
+            return byGroup != 0 ? byGroup : Integer.compare(a, b);
+        });
+        final String[] allTags = new String[allTagIds.size()];
         boolean[] checkedItems = new boolean[allTags.length];
         for (int i = 0; i < allTags.length; i++) {
-            checkedItems[i] = activeFilterTags.contains(allTags[i]);
+            int tagId = allTagIds.get(i);
+            allTags[i] = getString(R.string.filter_tag_label,
+                    dictionary.getGroup(tagId), dictionary.getName(tagId), visibleFacets.count(tagId));
+            checkedItems[i] = activeFilterTags.contains(tagId);
         }
+        // Правим копию: текущий фильтр должен совпадать с видимым списком, пока не нажат OK
+        final Set<Integer> selectedTags = new LinkedHashSet<>(activeFilterTags);
 
         new AlertDialog.Builder(this)
                 .setTitle(R.string.dialog_filter_title)
                 .setMultiChoiceItems(allTags, checkedItems, (dialog, which, isChecked) -> {
-                    String tag = allTags[which];
+                    Integer tagId = allTagIds.get(which);
                     if (isChecked) {
-                        if (!activeFilterTags.contains(tag)) {
-                            activeFilterTags.add(tag);
-                        }
+                        selectedTags.add(tagId);
                     } else {
-                        activeFilterTags.remove(tag);
+                        selectedTags.remove(tagId);
                     }
                 })
-                .setPositiveButton(android.R.string.ok, (dialog, which) -> applyFiltersAndSort())
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    activeFilterTags.clear();
+                    activeFilterTags.addAll(selectedTags);
+                    applyFiltersAndSort();
+                })
                 .setNegativeButton(android.R.string.cancel, null)
                 .setNeutralButton(R.string.clear_filters, (dialog, which) -> {
                     activeFilterTags.clear();
                     applyFiltersAndSort();
                 })
                 .show();
+        Metrics.end(Metrics.DIALOG_BUILD_TIME, start);
     }
 
     private void openSortDialog() {
+        long start = Metrics.begin("MainActivity.openSortDialog");
         final String[] options = new String[]{
                 getString(R.string.sort_by_date),
                 getString(R.string.sort_by_importance),
@@ -225,12 +583,18 @@ public class MainActivity extends AppCompatActivity {
                 getString(R.string.sort_by_sphere)
         };
 
+        // Режим применяем только по OK, чтобы он не расходился с порядком видимого списка
+        final int[] selectedSort = {currentSort};
         new AlertDialog.Builder(this)
                 .setTitle(R.string.dialog_sort_title)
-                .setSingleChoiceItems(options, currentSort, (dialog, which) -> currentSort = which)
-                .setPositiveButton(android.R.string.ok, (dialog, which) -> applyFiltersAndSort())
+                .setSingleChoiceItems(options, currentSort, (dialog, which) -> selectedSort[0] = which)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    currentSort = selectedSort[0];
+                    applyFiltersAndSort();
+                })
                 .setNegativeButton(android.R.string.cancel, null)
                 .show();
+        Metrics.end(Metrics.DIALOG_BUILD_TIME, start);
     }
 }
 
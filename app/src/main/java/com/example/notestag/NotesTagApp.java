@@ -0,0 +1,65 @@
+package com.example.notestag;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import com.example.notestag.store.TagCatalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Общее на весь процесс: каталог тегов и поток файлового ввода-вывода.
+ * Каталог читается здесь один раз, раньше любой активности: теги должны завестись
+ * в словаре в сохранённом порядке до того, как их встретит любая задача.
+ */
+public class NotesTagApp extends Application {
+
+    private static final String TAG = "NotesTagApp";
+
+    // Все файлы приложения пишутся и читаются по очереди на одном фоновом потоке
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private File directory;
+    private TagCatalog tagCatalog;
+
+    public static NotesTagApp get(Context context) {
+        return (NotesTagApp) context.getApplicationContext();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        directory = new File(getFilesDir(), "tasks");
+        tagCatalog = new TagCatalog(directory);
+        try {
+            tagCatalog.load();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load tag catalog", e);
+        }
+    }
+
+    /** Каталог с журналом задач, снимками и каталогом тегов. */
+    public File getDirectory() {
+        return directory;
+    }
+
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Сохраняет каталог в фоне, если в словаре появились теги (запись с fsync).
+     */
+    public void saveTagCatalog() {
+        ioExecutor.execute(() -> {
+            try {
+                tagCatalog.save();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save tag catalog", e);
+            }
+        });
+    }
+}
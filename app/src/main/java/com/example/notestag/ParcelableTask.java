@@ -0,0 +1,47 @@
+package com.example.notestag;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Обёртка для передачи задачи через Intent. Внутри – байты TaskCodec,
+ * поэтому сама Task остаётся обычным Java-классом без зависимостей от Android.
+ */
+public class ParcelableTask implements Parcelable {
+
+    private final Task task;
+
+    public ParcelableTask(Task task) {
+        this.task = task;
+    }
+
+    protected ParcelableTask(Parcel in) {
+        this.task = TaskCodec.decode(in.createByteArray());
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeByteArray(TaskCodec.encode(task));
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<ParcelableTask> CREATOR = new Creator<ParcelableTask>() {
+        @Override
+        public ParcelableTask createFromParcel(Parcel in) {
+            return new ParcelableTask(in);
+        }
+
+        @Override
+        public ParcelableTask[] newArray(int size) {
+            return new ParcelableTask[size];
+        }
+    };
+}
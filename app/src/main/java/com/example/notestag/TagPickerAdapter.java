@@ -0,0 +1,96 @@
+package com.example.notestag;
+
+import android.content.Context;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.chip.Chip;
+
+/**
+ * Список выбора тегов по TagPickerModel: заголовки групп на всю ширину и чипы тегов.
+ * Создаются View только для видимых строк, отметка чипа сразу пишется в модель.
+ */
+public class TagPickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private final TagPickerModel model;
+
+    public TagPickerAdapter(TagPickerModel model) {
+        this.model = model;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Заголовки групп занимают всю строку сетки, теги – по одной ячейке.
+     */
+    public GridLayoutManager.SpanSizeLookup spanSizeLookup(int spanCount) {
+        return new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return model.getRowType(position) == TagPickerModel.ROW_HEADER ? spanCount : 1;
+            }
+        };
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return model.getRowType(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return model.getRowId(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return model.getRowCount();
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        if (viewType == TagPickerModel.ROW_HEADER) {
+            TextView titleView = new TextView(context);
+            titleView.setTextSize(14f);
+            titleView.setPadding(0, dpToPx(context, 12), 0, dpToPx(context, 4));
+            return new RecyclerView.ViewHolder(titleView) {
+            };
+        }
+        Chip chip = new Chip(context);
+        chip.setCheckable(true);
+        chip.setOnCheckedChangeListener((button, isChecked) -> {
+            // В tag чипа лежит id тега, который он сейчас показывает
+            Object tagId = button.getTag();
+            if (tagId != null) {
+                model.setSelected((Integer) tagId, isChecked);
+            }
+        });
+        return new RecyclerView.ViewHolder(chip) {
+        };
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (model.getRowType(position) == TagPickerModel.ROW_HEADER) {
+            ((TextView) holder.itemView).setText(model.getGroupName(position));
+            return;
+        }
+        Chip chip = (Chip) holder.itemView;
+        int tagId = model.getTagId(position);
+        // Сначала снимаем id, чтобы setChecked при переиспользовании не поменял модель
+        chip.setTag(null);
+        chip.setText(TagDictionary.getInstance().getName(tagId));
+        chip.setChecked(model.isSelected(tagId));
+        chip.setTag(tagId);
+    }
+
+    private static int dpToPx(Context context, int dp) {
+        float density = context.getResources().getDisplayMetrics().density;
+        return Math.round(dp * density);
+    }
+}
@@ -2,6 +2,8 @@ package com.example.notestag;
 
 import android.content.Context;
 import android.graphics.PorterDuff;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,23 +11,120 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.notestag.metrics.Metrics;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder> {
 
-    private final List<Task> tasks;
+    // Сколько снятых со строк чипов держим про запас
+    private static final int MAX_POOLED_CHIPS = 32;
+
+    // Диффы больших списков считаем не на UI-потоке; поток живёт, пока жив экран (см. shutdown)
+    private final ExecutorService diffExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final Context context;
     private final TaskActionListener actionListener;
+    private final ArrayDeque<Chip> chipPool = new ArrayDeque<>();
+    private int chipsCreated;
+
+    // То, что сейчас показано на экране
+    private List<Task> tasks = new ArrayList<>();
+    // Последний переданный список, дифф для которого ещё считается (null – такого нет)
+    private List<Task> pendingTasks;
+    private int generation;
+    private boolean shutdown;
+    // Пока список показан из снимка старта, нажатия на строки игнорируем
+    private boolean interactive = true;
 
-    public TaskAdapter(Context context, List<Task> tasks, TaskActionListener actionListener) {
+    public TaskAdapter(Context context, TaskActionListener actionListener) {
         this.context = context;
-        this.tasks = tasks;
         this.actionListener = actionListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Полная замена списка: дифф считается в фоне, применяется только последний запрос.
+     * Переданный список после вызова менять нельзя.
+     */
+    public void submitList(List<Task> newTasks) {
+        if (shutdown) {
+            return;
+        }
+        final int submitGeneration = ++generation;
+        if (tasks.isEmpty() && pendingTasks == null) {
+            // С пустого экрана диффить нечего – показываем строки в этом же кадре
+            tasks = new ArrayList<>(newTasks);
+            notifyItemRangeInserted(0, newTasks.size());
+            return;
+        }
+        pendingTasks = newTasks;
+        final List<Task> oldTasks = new ArrayList<>(tasks);
+        diffExecutor.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new TaskDiffCallback(oldTasks, newTasks));
+            mainHandler.post(() -> {
+                if (submitGeneration != generation) {
+                    return;
+                }
+                pendingTasks = null;
+                tasks = new ArrayList<>(newTasks);
+                result.dispatchUpdatesTo(this);
+            });
+        });
+    }
+
+    /**
+     * Останавливает поток диффов при закрытии экрана. Дифф, досчитанный уже после этого,
+     * не применяется: его отсекает смена поколения.
+     */
+    public void shutdown() {
+        shutdown = true;
+        generation++;
+        pendingTasks = null;
+        diffExecutor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Вставка одной задачи: сдвиг списка и один bind вместо полного обновления.
+     */
+    public void insertItem(int position, Task task) {
+        if (pendingTasks != null) {
+            List<Task> next = new ArrayList<>(pendingTasks);
+            next.add(position, task);
+            submitList(next);
+            return;
+        }
+        tasks.add(position, task);
+        notifyItemInserted(position);
+    }
+
+    public void removeItem(int position) {
+        if (pendingTasks != null) {
+            List<Task> next = new ArrayList<>(pendingTasks);
+            next.remove(position);
+            submitList(next);
+            return;
+        }
+        tasks.remove(position);
+        notifyItemRemoved(position);
+    }
+
+    public void setInteractive(boolean interactive) {
+        this.interactive = interactive;
+    }
+
+    public Task getItem(int position) {
+        return tasks.get(position);
     }
 
     @NonNull
@@ -38,6 +137,7 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
+        long start = Metrics.begin("TaskAdapter.bind");
         Task task = tasks.get(position);
         holder.textTitle.setText(task.getTitle());
         holder.textStatus.setText(getStatusText(task.getStatus()));
@@ -45,16 +145,13 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
         holder.imageDone.setColorFilter(null);
         holder.imageDone.setImageResource(android.R.drawable.checkbox_off_background);
 
-        holder.chipGroupTags.removeAllViews();
-        for (String tag : task.getTags()) {
-            Chip chip = new Chip(context);
-            chip.setText(tag);
-            chip.setCheckable(false);
-            holder.chipGroupTags.addView(chip);
-        }
+        bindTags(holder.chipGroupTags, task);
 
         // Переключаем статус по нажатию на всю карточку
         holder.itemView.setOnClickListener(v -> {
+            if (!interactive) {
+                return;
+            }
             int current = task.getStatus();
             int next;
             if (current == Task.STATUS_NOT_STARTED) {
@@ -66,10 +163,16 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
             }
             task.setStatus(next);
             notifyItemChanged(holder.getAdapterPosition());
+            if (actionListener != null) {
+                actionListener.onTaskStatusChanged(task);
+            }
         });
 
         // Галочка выполнено: зелёная и сообщает наружу, что задачу нужно удалить
         holder.imageDone.setOnClickListener(v -> {
+            if (!interactive) {
+                return;
+            }
             // Анимация: красим иконку в зелёный и чуть ждём
             int green = context.getResources().getColor(android.R.color.holo_green_dark);
             holder.imageDone.setColorFilter(green, PorterDuff.Mode.SRC_IN);
@@ -79,6 +182,57 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
                 }
             }, 200);
         });
+        Metrics.end(Metrics.BIND_TIME, start);
+    }
+
+    /**
+     * Переиспользуем чипы, уже стоящие в строке: меняем текст только там, где сменился тег,
+     * недостающие берём из общего пула, лишние возвращаем в пул.
+     */
+    private void bindTags(ChipGroup group, Task task) {
+        int[] tagIds = task.getTagIds();
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int existing = group.getChildCount();
+        for (int i = 0; i < tagIds.length; i++) {
+            Chip chip;
+            if (i < existing) {
+                chip = (Chip) group.getChildAt(i);
+            } else {
+                chip = obtainChip();
+                group.addView(chip);
+            }
+            // В tag чипа лежит id показанного тега, чтобы не сравнивать строки
+            Object shownTag = chip.getTag();
+            if (shownTag == null || (Integer) shownTag != tagIds[i]) {
+                chip.setText(dictionary.getName(tagIds[i]));
+                chip.setTag(tagIds[i]);
+            }
+        }
+        for (int i = existing - 1; i >= tagIds.length; i--) {
+            Chip chip = (Chip) group.getChildAt(i);
+            group.removeViewAt(i);
+            if (chipPool.size() < MAX_POOLED_CHIPS) {
+                chipPool.push(chip);
+            }
+        }
+    }
+
+    private Chip obtainChip() {
+        Chip chip = chipPool.poll();
+        if (chip == null) {
+            chip = new Chip(context);
+            chip.setCheckable(false);
+            chipsCreated++;
+            Metrics.CHIPS_CREATED.increment();
+        }
+        return chip;
+    }
+
+    /**
+     * Сколько чипов адаптер создал за всё время (для замеров: при прокрутке число почти не растёт).
+     */
+    public int getChipsCreated() {
+        return chipsCreated;
     }
 
     @Override
@@ -86,6 +240,11 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
         return tasks.size();
     }
 
+    @Override
+    public long getItemId(int position) {
+        return tasks.get(position).getId();
+    }
+
     private String getStatusText(int status) {
         switch (status) {
             case Task.STATUS_IN_PROGRESS:
@@ -100,6 +259,48 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
 
     public interface TaskActionListener {
         void onTaskCompleted(Task task);
+
+        void onTaskStatusChanged(Task task);
+    }
+
+    private static class TaskDiffCallback extends DiffUtil.Callback {
+        private static final Object REBIND = new Object();
+
+        private final List<Task> oldTasks;
+        private final List<Task> newTasks;
+
+        TaskDiffCallback(List<Task> oldTasks, List<Task> newTasks) {
+            this.oldTasks = oldTasks;
+            this.newTasks = newTasks;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldTasks.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newTasks.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldTasks.get(oldItemPosition).getId() == newTasks.get(newItemPosition).getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            // Задача меняется только через смену статуса, а её адаптер перерисовывает сам
+            return oldTasks.get(oldItemPosition) == newTasks.get(newItemPosition);
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            // Та же задача другим объектом (строка из снимка старта) – перепривязываем
+            // строку на месте, без анимации смены содержимого
+            return REBIND;
+        }
     }
 
     static class TaskViewHolder extends RecyclerView.ViewHolder {
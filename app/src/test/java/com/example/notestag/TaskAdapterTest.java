@@ -0,0 +1,84 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.material.chip.Chip;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskAdapterTest {
+
+    private static final int ROWS = 20;
+    private static final int HOLDERS = 5;
+    private static final int MAX_TAGS = 4;
+
+    /**
+     * Как при прокрутке: несколько холдеров по кругу привязываются к одним и тем же строкам
+     * с разным числом тегов. Когда каждый холдер уже прошёл свои строки, новых чипов быть не должно.
+     */
+    @Test
+    public void rebindingSameRowsStopsCreatingChips() {
+        Context context = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.Theme_Notestag);
+        TaskAdapter adapter = new TaskAdapter(context, null);
+        adapter.submitList(tasks());
+        assertEquals(ROWS, adapter.getItemCount());
+
+        FrameLayout parent = new FrameLayout(context);
+        List<TaskAdapter.TaskViewHolder> holders = new ArrayList<>();
+        for (int i = 0; i < HOLDERS; i++) {
+            holders.add(adapter.onCreateViewHolder(parent, 0));
+        }
+
+        bindAll(adapter, holders);
+        bindAll(adapter, holders);
+        int created = adapter.getChipsCreated();
+        assertTrue("chips created: " + created, created <= HOLDERS * MAX_TAGS);
+        for (int round = 0; round < 10; round++) {
+            bindAll(adapter, holders);
+        }
+        assertEquals(created, adapter.getChipsCreated());
+
+        // Строка показывает ровно свои теги и в своём порядке
+        TaskAdapter.TaskViewHolder holder = holders.get(0);
+        adapter.onBindViewHolder(holder, 3);
+        Task task = adapter.getItem(3);
+        assertEquals(task.getTagIds().length, holder.chipGroupTags.getChildCount());
+        for (int i = 0; i < task.getTagIds().length; i++) {
+            Chip chip = (Chip) holder.chipGroupTags.getChildAt(i);
+            assertEquals(task.getTags().get(i), chip.getText().toString());
+        }
+        adapter.shutdown();
+    }
+
+    private static void bindAll(TaskAdapter adapter, List<TaskAdapter.TaskViewHolder> holders) {
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            adapter.onBindViewHolder(holders.get(position % holders.size()), position);
+        }
+    }
+
+    private static List<Task> tasks() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            int[] tagIds = new int[(i * 7) % (MAX_TAGS + 1)];
+            for (int j = 0; j < tagIds.length; j++) {
+                tagIds[j] = dictionary.intern("Адаптер", "тег" + ((i + j) % 9));
+            }
+            tasks.add(new Task("задача " + i, "", tagIds));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,37 @@
+plugins {
+    id("java")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation("org.openjdk.jmh:jmh-core:1.37")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+// ./gradlew :benchmarks:jmh -Pjmh="SortBenchmark" – параметры после имени передаются JMH как есть
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs JMH benchmarks on the local JVM"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = (project.findProperty("jmh") as String?)?.split(" ") ?: emptyList()
+}
+
+// ./gradlew :benchmarks:stress -Pstress="--tasks 1000000 --ops 20000 --mix create=30,delete=15,status=25,filter=20,sort=10"
+tasks.register<JavaExec>("stress") {
+    group = "benchmark"
+    description = "Replays a mixed user workload against the repository and query layer"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.notestag.benchmarks.StressHarness")
+    maxHeapSize = "4g"
+    args = (project.findProperty("stress") as String?)?.split(" ") ?: emptyList()
+}
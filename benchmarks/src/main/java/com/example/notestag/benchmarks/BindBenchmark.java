@@ -0,0 +1,64 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Данные, которые TaskAdapter готовит при привязке строки, без самих View (их можно мерить
+ * только на устройстве): строки с тегами по id и сравнение с уже показанными чипами.
+ * Замер – прокрутка окна из ROWS строк на одну позицию.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BindBenchmark {
+
+    private static final int ROWS = 12;
+    private static final int MAX_CHIPS = 8;
+
+    private List<Task> tasks;
+    // Какие теги сейчас показаны в чипах каждой строки окна (как chip.getTag() в адаптере)
+    private final int[][] shownTags = new int[ROWS][MAX_CHIPS];
+    private int first;
+
+    @Setup
+    public void setUp() {
+        tasks = new TaskGenerator(42).tasks(10_000);
+    }
+
+    @Benchmark
+    public void bindRow(Blackhole blackhole) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int position = first++ % tasks.size();
+        Task task = tasks.get(position);
+        int[] shown = shownTags[position % ROWS];
+        blackhole.consume(task.getTitle());
+        blackhole.consume(task.getStatus());
+        int[] tagIds = task.getTagIds();
+        for (int i = 0; i < tagIds.length && i < MAX_CHIPS; i++) {
+            // Текст чипа меняется только если в нём был другой тег
+            if (shown[i] != tagIds[i] + 1) {
+                blackhole.consume(dictionary.getName(tagIds[i]));
+                shown[i] = tagIds[i] + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskCodec;
+import com.example.notestag.store.TaskTransfer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация: бинарный кодек одной задачи и потоковый экспорт/импорт пачки из 10k задач.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    private List<Task> tasks;
+    private Task task;
+    private ByteBuffer buffer;
+    private byte[] encoded;
+    private byte[] jsonLines;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        tasks = new TaskGenerator(42).tasks(BATCH);
+        task = tasks.get(0);
+        buffer = ByteBuffer.allocate(64 * 1024);
+        encoded = TaskCodec.encode(task);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskTransfer.exportJsonLines(tasks, out);
+        jsonLines = out.toByteArray();
+        out.reset();
+        TaskTransfer.exportBinary(tasks, out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() {
+        buffer.clear();
+        TaskCodec.encode(task, buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public Task decode() {
+        return TaskCodec.decode(encoded);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void exportJsonLines() throws IOException {
+        TaskTransfer.exportJsonLines(tasks, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int importJsonLines() throws IOException {
+        return TaskTransfer.importTasks(new ByteArrayInputStream(jsonLines), TaskTransfer.DEFAULT_CHUNK_SIZE, chunk -> {
+        });
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int importBinary() throws IOException {
+        return TaskTransfer.importTasks(new ByteArrayInputStream(binary), TaskTransfer.DEFAULT_CHUNK_SIZE, chunk -> {
+        });
+    }
+}
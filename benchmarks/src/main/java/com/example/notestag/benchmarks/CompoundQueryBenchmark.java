@@ -0,0 +1,115 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+import com.example.notestag.TaskIndex;
+import com.example.notestag.TaskQuery;
+import com.example.notestag.TaskRepository;
+import com.example.notestag.TaskSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Составные запросы TaskQuery по плану над постингами и столбцами против проверки каждой
+ * задачи тем же условием (interpreted*) – на 1M задач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompoundQueryBenchmark {
+
+    private static final long MONTH_MS = 30L * 24 * 60 * 60 * 1000;
+
+    @Param({"1000000"})
+    public int size;
+
+    private TaskIndex index;
+    private List<Task> tasks;
+    private TaskQuery tagsAndStatus;
+    private TaskQuery orNotDate;
+    private TaskQuery textOrRare;
+    private int common;
+    private int work;
+    private int high;
+    private int burning;
+    private long monthAgo;
+
+    @Setup
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(42);
+        tasks = generator.tasks(size);
+        index = new TaskIndex();
+        new TaskRepository(index, null, Runnable::run).load(tasks);
+        TagDictionary dictionary = TagDictionary.getInstance();
+        common = generator.commonTag();
+        work = generator.workTag();
+        high = dictionary.find(TagDictionary.GROUP_IMPORTANCE, "Высокая");
+        burning = dictionary.find(TagDictionary.GROUP_URGENCY, "Горит");
+        monthAgo = System.currentTimeMillis() - MONTH_MS;
+
+        tagsAndStatus = TaskQuery.and(TaskQuery.tag(common), TaskQuery.tag(work),
+                TaskQuery.status(Task.STATUS_NOT_STARTED, Task.STATUS_IN_PROGRESS));
+        orNotDate = TaskQuery.and(TaskQuery.or(TaskQuery.tag(high), TaskQuery.tag(burning)),
+                TaskQuery.not(TaskQuery.status(Task.STATUS_DONE)),
+                TaskQuery.createdBetween(monthAgo, Long.MAX_VALUE))
+                .orderBy(TaskSorter.SORT_BY_IMPORTANCE);
+        textOrRare = TaskQuery.and(TaskQuery.text("отч"),
+                TaskQuery.or(TaskQuery.tag(work), TaskQuery.tag(generator.rareTag())));
+    }
+
+    @Benchmark
+    public List<Task> tagsAndStatus() {
+        return index.query(tagsAndStatus);
+    }
+
+    @Benchmark
+    public List<Task> orNotDateSorted() {
+        return index.query(orNotDate);
+    }
+
+    @Benchmark
+    public List<Task> textOrRare() {
+        return index.query(textOrRare);
+    }
+
+    @Benchmark
+    public List<Task> interpretedTagsAndStatus() {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.hasTag(common) && task.hasTag(work) && task.getStatus() != Task.STATUS_DONE) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Task> interpretedOrNotDateSorted() {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if ((task.hasTag(high) || task.hasTag(burning)) && task.getStatus() != Task.STATUS_DONE
+                    && task.getCreatedAt() >= monthAgo) {
+                result.add(task);
+            }
+        }
+        TaskSorter.sort(result, TaskSorter.SORT_BY_IMPORTANCE);
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтрация по индексу: частый тег, пересечение двух тегов, редкий тег и поиск по префиксу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private TaskIndex index;
+    private List<Integer> common;
+    private List<Integer> commonAndWork;
+    private List<Integer> rare;
+
+    @Setup
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(42);
+        index = new TaskIndex();
+        index.addAll(generator.tasks(size));
+        common = Collections.singletonList(generator.commonTag());
+        commonAndWork = Arrays.asList(generator.commonTag(), generator.workTag());
+        rare = Collections.singletonList(generator.rareTag());
+    }
+
+    @Benchmark
+    public List<Task> noFilter() {
+        return index.query(Collections.emptyList());
+    }
+
+    @Benchmark
+    public List<Task> commonTag() {
+        return index.query(common);
+    }
+
+    @Benchmark
+    public List<Task> twoTags() {
+        return index.query(commonAndWork);
+    }
+
+    @Benchmark
+    public List<Task> rareTag() {
+        return index.query(rare);
+    }
+
+    @Benchmark
+    public List<Task> searchPrefix() {
+        return index.query(Collections.emptyList(), "отч");
+    }
+}
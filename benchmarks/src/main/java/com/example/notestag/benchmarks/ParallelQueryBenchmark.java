@@ -0,0 +1,86 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskIndex;
+import com.example.notestag.TaskSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Последовательная и параллельная фильтрация и сортировка на одних и тех же данных
+ * от 1k до 1M задач – по результату выбираются пороги TaskIndex.PARALLEL_THRESHOLD
+ * и TaskSorter.PARALLEL_THRESHOLD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelQueryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private TaskIndex index;
+    private List<Task> shuffled;
+    private List<Integer> common;
+    private int threshold;
+
+    @Setup
+    public void setUp() {
+        threshold = mode.equals("parallel") ? 0 : Integer.MAX_VALUE;
+        TaskGenerator generator = new TaskGenerator(42);
+        List<Task> tasks = generator.tasks(size);
+        index = new TaskIndex(threshold);
+        index.addAll(tasks);
+        common = Collections.singletonList(generator.commonTag());
+        shuffled = new ArrayList<>(tasks);
+        Collections.shuffle(shuffled, new Random(7));
+    }
+
+    @Benchmark
+    public List<Task> filterAll() {
+        return index.query(Collections.emptyList());
+    }
+
+    @Benchmark
+    public List<Task> filterCommonTag() {
+        return index.query(common);
+    }
+
+    @Benchmark
+    public List<Task> sortByDate() {
+        // Сравнения: Arrays.parallelSort против List.sort
+        List<Task> copy = new ArrayList<>(shuffled);
+        TaskSorter.sort(copy, TaskSorter.SORT_BY_DATE, threshold);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Task> sortByImportance() {
+        // Сортировка подсчётом: куски по потокам против одного прохода
+        List<Task> copy = new ArrayList<>(shuffled);
+        TaskSorter.sort(copy, TaskSorter.SORT_BY_IMPORTANCE, threshold);
+        return copy;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сортировка в каждом режиме. Исходный порядок перемешан; копия списка входит в замер,
+ * но на фоне сортировки она дешёвая.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortBenchmark {
+
+    // Значения TaskSorter.SORT_BY_*: дата, важность, срочность, название, сфера
+    @Param({"0", "1", "2", "3", "4"})
+    public int sortMode;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private List<Task> tasks;
+    private List<Task> sorted;
+    private Task probe;
+
+    @Setup
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(42);
+        tasks = generator.tasks(size);
+        Collections.shuffle(tasks, new Random(7));
+        sorted = new ArrayList<>(tasks);
+        TaskSorter.sort(sorted, sortMode);
+        probe = generator.task();
+    }
+
+    @Benchmark
+    public List<Task> sort() {
+        List<Task> copy = new ArrayList<>(tasks);
+        TaskSorter.sort(copy, sortMode);
+        return copy;
+    }
+
+    @Benchmark
+    public int insertionPoint() {
+        // Одиночная вставка в уже отсортированный список – путь добавления задачи
+        return TaskSorter.insertionPoint(sorted, probe, sortMode);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskIndex;
+import com.example.notestag.TaskRepository;
+import com.example.notestag.TaskSorter;
+import com.example.notestag.store.TagCatalog;
+import com.example.notestag.store.TaskStore;
+import com.example.notestag.store.ViewSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь холодного старта MainActivity на диске с готовыми данными: firstRow – каталог тегов
+ * и снимок верха списка (до первого кадра), interactive – журнал, индексы и первый запрос
+ * (до полностью рабочего списка). Замер на устройстве – гистограммы startup.* в Metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private File directory;
+    private TaskStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("startup").toFile();
+        TaskGenerator generator = new TaskGenerator(42);
+        List<Task> tasks = generator.tasks(size);
+        TaskStore writer = new TaskStore(directory);
+        writer.load();
+        for (Task task : tasks) {
+            writer.appendCreate(task);
+        }
+        writer.close();
+        new TagCatalog(directory).save();
+        TaskSorter.sort(tasks, TaskSorter.SORT_BY_DATE);
+        ViewSnapshot.write(directory, TaskSorter.SORT_BY_DATE, Collections.emptyList(), tasks);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeStore() throws IOException {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    @Benchmark
+    public ViewSnapshot firstRow() throws IOException {
+        new TagCatalog(directory).load();
+        return ViewSnapshot.read(directory);
+    }
+
+    @Benchmark
+    public List<Task> interactive() throws IOException {
+        new TagCatalog(directory).load();
+        store = new TaskStore(directory);
+        TaskIndex index = new TaskIndex();
+        new TaskRepository(index, store, Runnable::run).load(store.load());
+        List<Task> visible = index.query(Collections.emptyList());
+        TaskSorter.sort(visible, TaskSorter.SORT_BY_DATE);
+        return visible;
+    }
+}
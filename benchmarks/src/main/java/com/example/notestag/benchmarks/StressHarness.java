@@ -0,0 +1,299 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskIndex;
+import com.example.notestag.TaskQueryEngine;
+import com.example.notestag.TaskRepository;
+import com.example.notestag.TaskSorter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон слоя репозитория и запросов на JVM без устройства: seed-генератор
+ * набирает историю из TaskGenerator (встроенные группы и свои теги по Ципфу), затем
+ * идёт смесь действий пользователя – создание, удаление свайпом, смена статуса, смена
+ * фильтра и сортировки – в том же порядке вызовов, что и в MainActivity. По каждому
+ * действию – пропускная способность, p50/p99/max и байты аллокаций на операцию.
+ *
+ * ./gradlew :benchmarks:stress -Pstress="--tasks 1000000 --ops 20000 --seed 42"
+ */
+public final class StressHarness {
+
+    private static final String[] OPERATIONS = {"create", "delete", "status", "filter", "sort"};
+    // Доли операций в смеси, в порядке OPERATIONS
+    private static final int[] DEFAULT_MIX = {30, 15, 25, 20, 10};
+    private static final int SORT_MODES = TaskSorter.SORT_BY_SPHERE + 1;
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+
+    private static final class Stats {
+        final String name;
+        long[] latencies = new long[1024];
+        int count;
+        long totalNanos;
+        long allocatedBytes;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long bytes) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            totalNanos += nanos;
+            allocatedBytes += bytes;
+        }
+
+        void print() {
+            if (count == 0) {
+                System.out.printf("%-8s %10s%n", name, "-");
+                return;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("%-8s %10d %12.0f %10.1f %10.1f %10.1f %12d%n", name, count,
+                    count / (totalNanos / 1e9), micros(percentile(sorted, 50)),
+                    micros(percentile(sorted, 99)), micros(sorted[count - 1]), allocatedBytes / count);
+        }
+
+        private static long percentile(long[] sorted, int p) {
+            return sorted[Math.min(sorted.length - 1, (int) ((long) sorted.length * p / 100))];
+        }
+
+        private static double micros(long nanos) {
+            return nanos / 1e3;
+        }
+    }
+
+    private final TaskGenerator generator;
+    private final Random random;
+    private final int[] mix;
+    private final TaskIndex index = new TaskIndex();
+    private final TaskRepository repository;
+    private final TaskQueryEngine queryEngine;
+    // Живые задачи для случайного выбора; удаление – обменом с последней
+    private final List<Task> live = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long mainThread = Thread.currentThread().getId();
+    // Поток TaskQueryEngine: его аллокации тоже считаем за фильтр и сортировку
+    private volatile long queryThread = -1;
+
+    private List<Integer> filter = Collections.emptyList();
+    private int sortMode = TaskSorter.SORT_BY_DATE;
+    private Stats[] stats;
+
+    private StressHarness(long seed, int[] mix) {
+        this.generator = new TaskGenerator(seed);
+        this.random = new Random(seed + 1);
+        this.mix = mix;
+        // Изменения уходят слушателю сразу, без кадров Choreographer
+        repository = new TaskRepository(index, null, Runnable::run);
+        queryEngine = new TaskQueryEngine(index, Runnable::run);
+        repository.setListener(changes -> queryEngine.onTasksChanged(changes.added, changes.removed));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = 100_000;
+        int ops = 20_000;
+        int warmup = -1;
+        long seed = 42;
+        int[] mix = DEFAULT_MIX;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--tasks":
+                    tasks = Integer.parseInt(args[++i]);
+                    break;
+                case "--ops":
+                    ops = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--mix":
+                    mix = parseMix(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]
+                            + "; expected --tasks, --ops, --warmup, --seed or --mix create=30,delete=15,...");
+            }
+        }
+        if (warmup < 0) {
+            warmup = ops / 5;
+        }
+
+        StressHarness harness = new StressHarness(seed, mix);
+        try {
+            harness.load(tasks);
+            harness.run(warmup);
+            harness.resetStats();
+            long allocatedBefore = harness.allocatedBytes();
+            long start = System.nanoTime();
+            harness.run(ops);
+            long elapsed = System.nanoTime() - start;
+            harness.report(ops, elapsed, harness.allocatedBytes() - allocatedBefore);
+        } finally {
+            harness.queryEngine.shutdown();
+        }
+    }
+
+    private static int[] parseMix(String text) {
+        int[] mix = new int[OPERATIONS.length];
+        for (String part : text.split(",")) {
+            String[] pair = part.split("=");
+            int op = Arrays.asList(OPERATIONS).indexOf(pair[0].trim());
+            if (pair.length != 2 || op < 0) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "'; operations are "
+                        + String.join(", ", OPERATIONS));
+            }
+            mix[op] = Integer.parseInt(pair[1].trim());
+        }
+        if (Arrays.stream(mix).sum() <= 0) {
+            throw new IllegalArgumentException("Mix '" + text + "' has no operations");
+        }
+        return mix;
+    }
+
+    private void load(int count) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Task> tasks = generator.tasks(count);
+        repository.load(tasks);
+        live.addAll(tasks);
+        // Первый запрос заодно показывает, какой поток у движка запросов
+        query();
+        System.out.printf("Loaded %d tasks in %.0f ms%n", count, (System.nanoTime() - start) / 1e6);
+    }
+
+    private void resetStats() {
+        stats = new Stats[OPERATIONS.length];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            stats[i] = new Stats(OPERATIONS[i]);
+        }
+    }
+
+    private void run(int ops) throws InterruptedException {
+        if (stats == null) {
+            resetStats();
+        }
+        int total = 0;
+        for (int weight : mix) {
+            total += weight;
+        }
+        for (int i = 0; i < ops; i++) {
+            int op = pick(total);
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            perform(op);
+            long nanos = System.nanoTime() - start;
+            stats[op].record(nanos, allocatedBytes() - allocated);
+        }
+    }
+
+    private int pick(int total) {
+        int value = random.nextInt(total);
+        for (int op = 0; op < mix.length; op++) {
+            value -= mix[op];
+            if (value < 0) {
+                return op;
+            }
+        }
+        return mix.length - 1;
+    }
+
+    private void perform(int op) throws InterruptedException {
+        switch (op) {
+            case 0:
+                Task task = generator.task();
+                repository.add(task);
+                live.add(task);
+                break;
+            case 1:
+                if (!live.isEmpty()) {
+                    int i = random.nextInt(live.size());
+                    Task removed = live.get(i);
+                    live.set(i, live.get(live.size() - 1));
+                    live.remove(live.size() - 1);
+                    repository.remove(removed);
+                }
+                break;
+            case 2:
+                if (!live.isEmpty()) {
+                    Task toggled = live.get(random.nextInt(live.size()));
+                    repository.setStatus(toggled, (toggled.getStatus() + 1) % 3);
+                }
+                break;
+            case 3:
+                filter = randomFilter();
+                query();
+                break;
+            default:
+                sortMode = (sortMode + 1 + random.nextInt(SORT_MODES - 1)) % SORT_MODES;
+                query();
+                break;
+        }
+    }
+
+    /**
+     * 0–2 тега, взятых у случайных задач: частота тега в фильтре повторяет его частоту
+     * в истории, как при выборе из фасетов.
+     */
+    private List<Integer> randomFilter() {
+        int size = random.nextInt(3);
+        List<Integer> tags = new ArrayList<>(size);
+        for (int i = 0; i < size && !live.isEmpty(); i++) {
+            int[] tagIds = live.get(random.nextInt(live.size())).getTagIds();
+            if (tagIds.length > 0) {
+                int tagId = tagIds[random.nextInt(tagIds.length)];
+                if (!tags.contains(tagId)) {
+                    tags.add(tagId);
+                }
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Запрос через TaskQueryEngine с ожиданием результата – как applyFiltersAndSort до
+     * появления списка на экране.
+     */
+    private void query() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        queryEngine.submit(filter, "", sortMode, (tasks, facets) -> {
+            queryThread = Thread.currentThread().getId();
+            done.countDown();
+        });
+        if (!done.await(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Query did not finish in " + QUERY_TIMEOUT_SECONDS + " s");
+        }
+    }
+
+    private long allocatedBytes() {
+        long bytes = threads.getThreadAllocatedBytes(mainThread);
+        if (queryThread >= 0) {
+            bytes += Math.max(0, threads.getThreadAllocatedBytes(queryThread));
+        }
+        return bytes;
+    }
+
+    private void report(int ops, long elapsedNanos, long allocated) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%d ops in %.2f s: %.0f ops/s, allocation %.1f MB/s, %d live tasks%n",
+                ops, seconds, ops / seconds, allocated / seconds / (1024 * 1024), live.size());
+        System.out.printf("%-8s %10s %12s %10s %10s %10s %12s%n",
+                "op", "count", "ops/s", "p50 us", "p99 us", "max us", "bytes/op");
+        for (Stats stat : stats) {
+            stat.print();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.TagSuggester;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсказка тегов на одно нажатие клавиши: название набирается по букве, на каждой
+ * букве – suggest() по истории из size задач. Цель – меньше 1 мс на вызов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SuggestBenchmark {
+
+    private static final int LIMIT = 5;
+
+    @Param({"100000"})
+    public int size;
+
+    private TagSuggester suggester;
+    private List<String> keystrokes;
+    private List<Integer> selected;
+    private int next;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        TaskGenerator generator = new TaskGenerator(42);
+        suggester = TagSuggester.getInstance();
+        suggester.rebuild(generator.tasks(size));
+        suggester.awaitPublished();
+        keystrokes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String title = generator.title();
+            for (int end = 1; end <= title.length(); end++) {
+                keystrokes.add(title.substring(0, end));
+            }
+        }
+        selected = Collections.singletonList(generator.workTag());
+    }
+
+    @Benchmark
+    public List<Integer> keystroke() {
+        String title = keystrokes.get(next);
+        next = (next + 1) % keystrokes.size();
+        return suggester.suggest(title, Collections.emptyList(), LIMIT);
+    }
+
+    @Benchmark
+    public List<Integer> keystrokeWithSelection() {
+        String title = keystrokes.get(next);
+        next = (next + 1) % keystrokes.size();
+        return suggester.suggest(title, selected, LIMIT);
+    }
+}
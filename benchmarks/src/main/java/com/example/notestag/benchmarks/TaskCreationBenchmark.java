@@ -0,0 +1,57 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание задачи: подсчёт ключей сортировки по тегам в конструкторе и интернирование тега.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TaskCreationBenchmark {
+
+    private static final int SPECS = 1024;
+
+    private final String[] titles = new String[SPECS];
+    private final String[] descriptions = new String[SPECS];
+    private final int[][] tagIds = new int[SPECS][];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TaskGenerator generator = new TaskGenerator(42);
+        for (int i = 0; i < SPECS; i++) {
+            titles[i] = generator.title();
+            descriptions[i] = generator.description();
+            tagIds[i] = generator.tagIds();
+        }
+    }
+
+    @Benchmark
+    public Task createTask() {
+        int i = next++ & (SPECS - 1);
+        return new Task(titles[i], descriptions[i], tagIds[i]);
+    }
+
+    @Benchmark
+    public int internExistingTag() {
+        return TagDictionary.getInstance().intern(TagDictionary.GROUP_SPHERE, "Работа");
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.notestag.benchmarks;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетические задачи с распределением тегов, похожим на реальное: у большинства задач
+ * есть важность и сфера, срочность – примерно у половины, свои теги редки и распределены
+ * по Ципфу (несколько популярных, длинный хвост). Генерация детерминирована по seed.
+ */
+public final class TaskGenerator {
+
+    private static final String[] IMPORTANCE = {"Низкая", "Средняя", "Высокая", "Критическая"};
+    private static final double[] IMPORTANCE_WEIGHTS = {0.30, 0.40, 0.22, 0.08};
+    private static final String[] URGENCY = {"Не срочно", "Срочно", "Горит"};
+    private static final double[] URGENCY_WEIGHTS = {0.50, 0.35, 0.15};
+    private static final String[] SPHERES = {"Работа", "Личное", "Дом", "Покупки", "Здоровье", "Финансы", "Обучение"};
+    private static final double[] SPHERE_WEIGHTS = {0.35, 0.20, 0.15, 0.12, 0.07, 0.06, 0.05};
+
+    private static final int CUSTOM_GROUPS = 10;
+    private static final int CUSTOM_TAGS = 200;
+
+    private static final String[] WORDS = {
+            "купить", "позвонить", "отчёт", "встреча", "проект", "молоко", "врач", "счёт",
+            "оплатить", "написать", "письмо", "прочитать", "книга", "код", "ревью", "план",
+            "неделя", "понедельник", "ремонт", "квартира", "спорт", "бег", "курс", "лекция",
+            "подарок", "мама", "друзья", "поездка", "билеты", "документы", "налоги", "банк",
+            "release", "bug", "deploy", "review", "meeting", "notes", "draft", "budget"
+    };
+
+    private static final long YEAR_MS = 365L * 24 * 60 * 60 * 1000;
+
+    private final Random random;
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+    private final int[] importanceIds = new int[IMPORTANCE.length];
+    private final int[] urgencyIds = new int[URGENCY.length];
+    private final int[] sphereIds = new int[SPHERES.length];
+    private final int[] customIds = new int[CUSTOM_TAGS];
+    private final double[] customCumulative = new double[CUSTOM_TAGS];
+    private final long now = System.currentTimeMillis();
+    private long nextId = 1;
+
+    public TaskGenerator(long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < IMPORTANCE.length; i++) {
+            importanceIds[i] = dictionary.intern(TagDictionary.GROUP_IMPORTANCE, IMPORTANCE[i]);
+        }
+        for (int i = 0; i < URGENCY.length; i++) {
+            urgencyIds[i] = dictionary.intern(TagDictionary.GROUP_URGENCY, URGENCY[i]);
+        }
+        for (int i = 0; i < SPHERES.length; i++) {
+            sphereIds[i] = dictionary.intern(TagDictionary.GROUP_SPHERE, SPHERES[i]);
+        }
+        // Ципф с s = 1.1: i-й по популярности тег встречается в ~1/i^1.1 раз реже первого
+        double total = 0;
+        for (int i = 0; i < CUSTOM_TAGS; i++) {
+            customIds[i] = dictionary.intern("Группа " + (i % CUSTOM_GROUPS), "тег" + i);
+            total += 1 / Math.pow(i + 1, 1.1);
+            customCumulative[i] = total;
+        }
+        for (int i = 0; i < CUSTOM_TAGS; i++) {
+            customCumulative[i] /= total;
+        }
+    }
+
+    /** Самый частый тег важности ("Средняя") – для фильтров с большим результатом. */
+    public int commonTag() {
+        return importanceIds[1];
+    }
+
+    /** Сфера "Работа" – второй по частоте фильтр. */
+    public int workTag() {
+        return sphereIds[0];
+    }
+
+    /** Редкий свой тег из хвоста распределения. */
+    public int rareTag() {
+        return customIds[CUSTOM_TAGS - 1];
+    }
+
+    public List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(task());
+        }
+        return tasks;
+    }
+
+    public Task task() {
+        Task task = new Task(nextId++, title(), description(), tagIds(), now - (long) (random.nextDouble() * YEAR_MS));
+        task.setStatus(random.nextInt(10) < 6 ? Task.STATUS_NOT_STARTED
+                : random.nextInt(2) == 0 ? Task.STATUS_IN_PROGRESS : Task.STATUS_DONE);
+        return task;
+    }
+
+    public String title() {
+        return words(2 + random.nextInt(5));
+    }
+
+    public String description() {
+        return random.nextInt(3) == 0 ? "" : words(random.nextInt(30));
+    }
+
+    public int[] tagIds() {
+        int[] tags = new int[6];
+        int size = 0;
+        if (random.nextDouble() < 0.85) {
+            tags[size++] = importanceIds[pick(IMPORTANCE_WEIGHTS)];
+        }
+        if (random.nextDouble() < 0.5) {
+            tags[size++] = urgencyIds[pick(URGENCY_WEIGHTS)];
+        }
+        if (random.nextDouble() < 0.9) {
+            tags[size++] = sphereIds[pick(SPHERE_WEIGHTS)];
+        }
+        // 0–3 своих тега, чаще ни одного
+        int custom = random.nextInt(8);
+        custom = custom < 4 ? 0 : custom - 4;
+        for (int i = 0; i < custom; i++) {
+            int tagId = customIds[zipf()];
+            if (!contains(tags, size, tagId)) {
+                tags[size++] = tagId;
+            }
+        }
+        int[] result = new int[size];
+        System.arraycopy(tags, 0, result, 0, size);
+        return result;
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private int pick(double[] weights) {
+        double value = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private int zipf() {
+        double value = random.nextDouble();
+        int low = 0;
+        int high = CUSTOM_TAGS - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (customCumulative[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] tags, int size, int tagId) {
+        for (int i = 0; i < size; i++) {
+            if (tags[i] == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
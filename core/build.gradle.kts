@@ -0,0 +1,18 @@
+plugins {
+    id("java-library")
+}
+
+// Модель задач, индекс, сортировка и хранилище – чистая Java без Android,
+// чтобы их можно было гонять и замерять на обычной JVM
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
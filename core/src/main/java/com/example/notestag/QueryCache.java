@@ -0,0 +1,223 @@
+package com.example.notestag;
+
+import com.example.notestag.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU-кэш отсортированных результатов по ключу (набор тегов фильтра, режим сортировки).
+ * При изменении задач записи не сбрасываются, а правятся на месте: задача вставляется
+ * бинарным поиском в те результаты, под фильтр которых она подходит, и удаляется из них.
+ * Объём ограничен бюджетом в байтах, старые записи вытесняются первыми.
+ * Методы синхронизированы: get/put зовёт фоновый поток запроса, patch – UI-поток.
+ */
+public class QueryCache {
+
+    // Заголовок массива и ссылка на задачу (со сжатыми ссылками – 4 байта, берём с запасом)
+    private static final int ARRAY_OVERHEAD = 16;
+    private static final int REFERENCE_BYTES = 8;
+    private static final int ENTRY_OVERHEAD = 96;
+    // Большие пачки дешевле пересчитать, чем вставлять по одной во все записи
+    private static final int MAX_PATCH_SIZE = 64;
+
+    private static final class Key {
+        final int[] tags;
+        final int sortMode;
+
+        Key(Collection<Integer> filterTags, int sortMode) {
+            int[] sorted = new int[filterTags.size()];
+            int i = 0;
+            for (int tagId : filterTags) {
+                sorted[i++] = tagId;
+            }
+            Arrays.sort(sorted);
+            // Повторы тегов на результат не влияют
+            int size = 0;
+            for (int tagId : sorted) {
+                if (size == 0 || sorted[size - 1] != tagId) {
+                    sorted[size++] = tagId;
+                }
+            }
+            this.tags = Arrays.copyOf(sorted, size);
+            this.sortMode = sortMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return sortMode == other.sortMode && Arrays.equals(tags, other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(tags) + sortMode;
+        }
+    }
+
+    private final long maxBytes;
+    private final Map<Key, Task[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    // Растёт при каждой правке; результат, посчитанный до правки, в кэш уже не кладём
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public QueryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Копия закэшированного результата или null.
+     */
+    public synchronized List<Task> get(Collection<Integer> filterTags, int sortMode) {
+        Task[] cached = entries.get(new Key(filterTags, sortMode));
+        if (cached == null) {
+            misses++;
+            Metrics.QUERY_CACHE_MISSES.increment();
+            return null;
+        }
+        hits++;
+        Metrics.QUERY_CACHE_HITS.increment();
+        return new ArrayList<>(Arrays.asList(cached));
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Кладёт результат, если с момента version() задачи не менялись.
+     */
+    public synchronized void put(Collection<Integer> filterTags, int sortMode, List<Task> sorted, long queryVersion) {
+        if (queryVersion != version) {
+            return;
+        }
+        long size = sizeOf(sorted.size());
+        if (size > maxBytes) {
+            return;
+        }
+        Task[] previous = entries.put(new Key(filterTags, sortMode), sorted.toArray(new Task[0]));
+        if (previous != null) {
+            bytes -= sizeOf(previous.length);
+        }
+        bytes += size;
+        evict();
+    }
+
+    /**
+     * Правит закэшированные результаты после изменения задач. Вызывать после того,
+     * как изменения попали в индекс. Задача может быть в обоих списках, если её добавили
+     * и удалили в одном кадре, поэтому добавления применяются первыми, а удаления – после.
+     */
+    public synchronized void patch(Collection<Task> added, Collection<Task> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        version++;
+        if (added.size() + removed.size() > MAX_PATCH_SIZE) {
+            entries.clear();
+            bytes = 0;
+            return;
+        }
+        for (Map.Entry<Key, Task[]> entry : entries.entrySet()) {
+            Key key = entry.getKey();
+            Task[] result = entry.getValue();
+            for (Task task : added) {
+                if (matches(task, key.tags)) {
+                    result = insert(result, task, key.sortMode);
+                }
+            }
+            for (Task task : removed) {
+                result = remove(result, task, key.sortMode);
+            }
+            bytes += sizeOf(result.length) - sizeOf(entry.getValue().length);
+            entry.setValue(result);
+        }
+        evict();
+    }
+
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache{entries=" + entries.size() + ", bytes=" + bytes + "/" + maxBytes
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private void evict() {
+        Iterator<Task[]> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next().length);
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static Task[] insert(Task[] result, Task task, int sortMode) {
+        List<Task> view = Arrays.asList(result);
+        if (TaskSorter.indexOf(view, task, sortMode) >= 0) {
+            // Результат уже посчитан по индексу с этой задачей
+            return result;
+        }
+        int position = TaskSorter.insertionPoint(view, task, sortMode);
+        Task[] patched = new Task[result.length + 1];
+        System.arraycopy(result, 0, patched, 0, position);
+        patched[position] = task;
+        System.arraycopy(result, position, patched, position + 1, result.length - position);
+        return patched;
+    }
+
+    private static Task[] remove(Task[] result, Task task, int sortMode) {
+        int position = TaskSorter.indexOf(Arrays.asList(result), task, sortMode);
+        if (position < 0) {
+            return result;
+        }
+        Task[] patched = new Task[result.length - 1];
+        System.arraycopy(result, 0, patched, 0, position);
+        System.arraycopy(result, position + 1, patched, position, patched.length - position);
+        return patched;
+    }
+
+    private static boolean matches(Task task, int[] filterTags) {
+        for (int filterTag : filterTags) {
+            if (!task.hasTag(filterTag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long sizeOf(int length) {
+        return ENTRY_OVERHEAD + ARRAY_OVERHEAD + (long) length * REFERENCE_BYTES;
+    }
+}
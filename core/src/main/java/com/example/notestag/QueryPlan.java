@@ -0,0 +1,496 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * TaskQuery, скомпилированный под текущее состояние TaskIndex. Каждое условие – узел над
+ * BitSet слотов: теги, статус и текст – готовые постинги, дата – проход по столбцу дат.
+ * В AND сначала идёт самое избирательное условие (меньше всего задач по постингам), его
+ * результат остальные только сужают; условия по дате – последними, им достаточно
+ * проверить оставшихся кандидатов. Константы сворачиваются при компиляции: тег, которого
+ * нет ни у одной задачи, обнуляет весь AND ещё до выполнения.
+ * Компиляция и filter() – под блокировкой индекса, order() – уже без неё.
+ */
+final class QueryPlan {
+
+    private static final String[] SORT_NAMES = {"date", "importance", "urgency", "title", "sphere"};
+
+    private final TaskIndex index;
+    private final Node root;
+    private final int sortMode;
+
+    private QueryPlan(TaskIndex index, Node root, int sortMode) {
+        this.index = index;
+        this.root = root;
+        this.sortMode = sortMode;
+    }
+
+    static QueryPlan compile(TaskIndex index, TaskQuery query) {
+        return new QueryPlan(index, new Compiler(index).compile(query), query.getSortMode());
+    }
+
+    /** Подходящие задачи в порядке слотов. */
+    List<Task> filter() {
+        return index.tasksAt(root.evaluate());
+    }
+
+    /** Последний шаг – сортировка из диалога сортировки. */
+    List<Task> order(List<Task> tasks) {
+        if (sortMode != TaskQuery.UNSORTED) {
+            TaskSorter.sort(tasks, sortMode);
+        }
+        return tasks;
+    }
+
+    /** План по строке на узел в порядке выполнения, ~N – оценка числа задач. */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        root.explain(out, 0);
+        if (sortMode != TaskQuery.UNSORTED) {
+            out.append("ORDER BY ").append(sortMode < SORT_NAMES.length ? SORT_NAMES[sortMode] : sortMode).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static final class Compiler {
+        private final TaskIndex index;
+        private final BitSet live;
+        private final int liveCount;
+
+        Compiler(TaskIndex index) {
+            this.index = index;
+            this.live = index.liveSlots();
+            this.liveCount = live.cardinality();
+        }
+
+        Node compile(TaskQuery query) {
+            switch (query.kind) {
+                case TaskQuery.ALL:
+                    return new AllNode(live, liveCount);
+                case TaskQuery.TAG: {
+                    BitSet posting = index.posting(query.value);
+                    if (posting == null) {
+                        return new EmptyNode();
+                    }
+                    TagDictionary dictionary = TagDictionary.getInstance();
+                    return new BitsNode("TAG " + dictionary.getGroup(query.value) + ":"
+                            + dictionary.getName(query.value), posting);
+                }
+                case TaskQuery.STATUS:
+                    return compileStatus(query.value);
+                case TaskQuery.CREATED:
+                    if (query.from == Long.MIN_VALUE && query.to == Long.MAX_VALUE) {
+                        return new AllNode(live, liveCount);
+                    }
+                    return new RangeNode(index.createdAtColumn(), live, liveCount, query.from, query.to);
+                case TaskQuery.TEXT: {
+                    BitSet matches = index.textMatch(query.text);
+                    return matches == null ? new AllNode(live, liveCount)
+                            : new BitsNode("TEXT \"" + query.text.trim() + "\"", matches);
+                }
+                case TaskQuery.NOT:
+                    return compileNot(compile(query.children.get(0)));
+                case TaskQuery.AND:
+                    return compileAnd(query.children);
+                default:
+                    return compileOr(query.children);
+            }
+        }
+
+        private Node compileStatus(int mask) {
+            BitSet union = null;
+            StringBuilder label = new StringBuilder("STATUS");
+            for (int status = Task.STATUS_NOT_STARTED; status <= Task.STATUS_DONE; status++) {
+                if ((mask & (1 << status)) == 0) {
+                    continue;
+                }
+                label.append(' ').append(status);
+                BitSet posting = index.statusPosting(status);
+                if (union == null) {
+                    union = posting;
+                } else {
+                    // Постинги индекса не трогаем – объединяем в копии
+                    union = (BitSet) union.clone();
+                    union.or(posting);
+                }
+            }
+            if (union == null) {
+                return new EmptyNode();
+            }
+            if (mask == (1 << (Task.STATUS_DONE + 1)) - 1) {
+                return new AllNode(live, liveCount);
+            }
+            return new BitsNode(label.toString(), union);
+        }
+
+        private Node compileNot(Node child) {
+            if (child instanceof EmptyNode) {
+                return new AllNode(live, liveCount);
+            }
+            if (child instanceof AllNode) {
+                return new EmptyNode();
+            }
+            if (child instanceof NotNode) {
+                return ((NotNode) child).child;
+            }
+            return new NotNode(child, live, liveCount);
+        }
+
+        private Node compileAnd(List<TaskQuery> queries) {
+            List<Node> children = new ArrayList<>();
+            for (TaskQuery query : queries) {
+                Node child = compile(query);
+                if (child instanceof EmptyNode) {
+                    return child;
+                }
+                if (child instanceof AndNode) {
+                    children.addAll(((AndNode) child).children);
+                } else if (!(child instanceof AllNode)) {
+                    children.add(child);
+                }
+            }
+            if (children.isEmpty()) {
+                return new AllNode(live, liveCount);
+            }
+            if (children.size() == 1) {
+                return children.get(0);
+            }
+            return new AndNode(children);
+        }
+
+        private Node compileOr(List<TaskQuery> queries) {
+            List<Node> children = new ArrayList<>();
+            for (TaskQuery query : queries) {
+                Node child = compile(query);
+                if (child instanceof AllNode) {
+                    return child;
+                }
+                if (child instanceof OrNode) {
+                    children.addAll(((OrNode) child).children);
+                } else if (!(child instanceof EmptyNode)) {
+                    children.add(child);
+                }
+            }
+            if (children.isEmpty()) {
+                return new EmptyNode();
+            }
+            if (children.size() == 1) {
+                return children.get(0);
+            }
+            return new OrNode(children, liveCount);
+        }
+    }
+
+    private abstract static class Node {
+        // Верхняя оценка числа задач – по ней упорядочиваются условия AND
+        final long estimate;
+
+        Node(long estimate) {
+            this.estimate = estimate;
+        }
+
+        /** Новый BitSet подходящих слотов; вызывающий может его менять. */
+        abstract BitSet evaluate();
+
+        /** Оставляет в candidates только подходящие слоты. */
+        void restrict(BitSet candidates) {
+            candidates.and(evaluate());
+        }
+
+        /**
+         * Условие проверяется по кандидатам, а не готовым BitSet (столбец дат): в AND
+         * такие идут после постингов, когда кандидатов уже мало.
+         */
+        boolean residual() {
+            return false;
+        }
+
+        abstract String describe();
+
+        List<Node> children() {
+            return Collections.emptyList();
+        }
+
+        final void explain(StringBuilder out, int depth) {
+            for (int i = 0; i < depth; i++) {
+                out.append("  ");
+            }
+            out.append(describe()).append(" ~").append(estimate).append('\n');
+            for (Node child : children()) {
+                child.explain(out, depth + 1);
+            }
+        }
+    }
+
+    private static final class AllNode extends Node {
+        private final BitSet live;
+
+        AllNode(BitSet live, int liveCount) {
+            super(liveCount);
+            this.live = live;
+        }
+
+        @Override
+        BitSet evaluate() {
+            return (BitSet) live.clone();
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+        }
+
+        @Override
+        String describe() {
+            return "ALL";
+        }
+    }
+
+    private static final class EmptyNode extends Node {
+        EmptyNode() {
+            super(0);
+        }
+
+        @Override
+        BitSet evaluate() {
+            return new BitSet();
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            candidates.clear();
+        }
+
+        @Override
+        String describe() {
+            return "EMPTY";
+        }
+    }
+
+    /** Готовый BitSet: постинг тега, статуса или результат текстового поиска. */
+    private static final class BitsNode extends Node {
+        private final String label;
+        private final BitSet bits;
+
+        BitsNode(String label, BitSet bits) {
+            super(bits.cardinality());
+            this.label = label;
+            this.bits = bits;
+        }
+
+        @Override
+        BitSet evaluate() {
+            return (BitSet) bits.clone();
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            candidates.and(bits);
+        }
+
+        @Override
+        String describe() {
+            return label;
+        }
+    }
+
+    /** createdAt в [from, to) – проход по столбцу дат индекса. */
+    private static final class RangeNode extends Node {
+        private final long[] createdAt;
+        private final BitSet live;
+        private final long from;
+        private final long to;
+
+        RangeNode(long[] createdAt, BitSet live, int liveCount, long from, long to) {
+            // Без гистограммы дат оценка худшая – условие всё равно идёт последним
+            super(liveCount);
+            this.createdAt = createdAt;
+            this.live = live;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        BitSet evaluate() {
+            BitSet result = (BitSet) live.clone();
+            restrict(result);
+            return result;
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                long time = createdAt[slot];
+                if (time < from || time >= to) {
+                    candidates.clear(slot);
+                }
+            }
+        }
+
+        @Override
+        boolean residual() {
+            return true;
+        }
+
+        @Override
+        String describe() {
+            return "CREATED [" + (from == Long.MIN_VALUE ? "" : from) + ", " + (to == Long.MAX_VALUE ? "" : to) + ")";
+        }
+    }
+
+    private static final class NotNode extends Node {
+        final Node child;
+        private final BitSet live;
+
+        NotNode(Node child, BitSet live, int liveCount) {
+            super(Math.max(0, liveCount - child.estimate));
+            this.child = child;
+            this.live = live;
+        }
+
+        @Override
+        BitSet evaluate() {
+            BitSet result = (BitSet) live.clone();
+            restrict(result);
+            return result;
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            // Проверяем ребёнка только на кандидатах – для столбца дат это дешевле полного прохода
+            BitSet excluded = (BitSet) candidates.clone();
+            child.restrict(excluded);
+            candidates.andNot(excluded);
+        }
+
+        @Override
+        boolean residual() {
+            return child.residual();
+        }
+
+        @Override
+        String describe() {
+            return "NOT";
+        }
+
+        @Override
+        List<Node> children() {
+            return Collections.singletonList(child);
+        }
+    }
+
+    private static final class AndNode extends Node {
+        final List<Node> children;
+
+        AndNode(List<Node> children) {
+            super(minEstimate(children));
+            children.sort(Comparator.comparing(Node::residual).thenComparingLong(node -> node.estimate));
+            this.children = children;
+        }
+
+        private static long minEstimate(List<Node> children) {
+            long min = Long.MAX_VALUE;
+            for (Node child : children) {
+                min = Math.min(min, child.estimate);
+            }
+            return min;
+        }
+
+        @Override
+        BitSet evaluate() {
+            BitSet result = children.get(0).evaluate();
+            for (int i = 1; i < children.size() && !result.isEmpty(); i++) {
+                children.get(i).restrict(result);
+            }
+            return result;
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            for (int i = 0; i < children.size() && !candidates.isEmpty(); i++) {
+                children.get(i).restrict(candidates);
+            }
+        }
+
+        @Override
+        boolean residual() {
+            for (Node child : children) {
+                if (!child.residual()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        String describe() {
+            return "AND";
+        }
+
+        @Override
+        List<Node> children() {
+            return children;
+        }
+    }
+
+    private static final class OrNode extends Node {
+        final List<Node> children;
+
+        OrNode(List<Node> children, int liveCount) {
+            super(Math.min(liveCount, sumEstimate(children)));
+            this.children = children;
+        }
+
+        private static long sumEstimate(List<Node> children) {
+            long sum = 0;
+            for (Node child : children) {
+                sum += child.estimate;
+            }
+            return sum;
+        }
+
+        @Override
+        BitSet evaluate() {
+            BitSet result = children.get(0).evaluate();
+            for (int i = 1; i < children.size(); i++) {
+                result.or(children.get(i).evaluate());
+            }
+            return result;
+        }
+
+        @Override
+        void restrict(BitSet candidates) {
+            BitSet matched = new BitSet();
+            for (Node child : children) {
+                BitSet part = (BitSet) candidates.clone();
+                child.restrict(part);
+                matched.or(part);
+            }
+            candidates.and(matched);
+        }
+
+        @Override
+        boolean residual() {
+            for (Node child : children) {
+                if (child.residual()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        String describe() {
+            return "OR";
+        }
+
+        @Override
+        List<Node> children() {
+            return children;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.notestag;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Глобальный словарь тегов: каждая пара (группа, тег) получает маленький int id.
+ * Задачи хранят только id, а строки живут здесь в единственном экземпляре.
+ * <p>
+ * Для каждого тега известны порядковый номер его группы и ранг внутри группы (порядок
+ * добавления), так что сортировка по группе и уровни важности/срочности/сферы – это чтение
+ * из массива. Чтение идёт без блокировок из неизменяемого снимка; новый тег публикует
+ * новый снимок (copy-on-write под блокировкой писателя). Массивы снимков общие и только
+ * дописываются: старый снимок не видит ничего дальше своего size.
+ * Сохранение словаря на диск – store.TagCatalog.
+ */
+public final class TagDictionary {
+
+    /** Значение ключа сортировки, если у задачи нет тега из соответствующей группы. */
+    public static final int NO_LEVEL = -1;
+
+    public static final String GROUP_IMPORTANCE = "Важность";
+    public static final String GROUP_URGENCY = "Срочность";
+    public static final String GROUP_SPHERE = "Сфера";
+
+    // Уровни по возрастанию: индекс в массиве и есть уровень (ранг в группе)
+    private static final String[] IMPORTANCE_LEVELS = {"Низкая", "Средняя", "Высокая", "Критическая"};
+    private static final String[] URGENCY_LEVELS = {"Не срочно", "Срочно", "Горит"};
+    // Сферы в порядке показа в выборе тегов; сортировка по сфере – алфавитная, см. SPHERE_SORT_RANKS
+    private static final String[] SPHERES = {"Работа", "Личное", "Дом", "Покупки", "Здоровье", "Финансы", "Обучение"};
+    // Ранг сферы в SPHERES -> её место по алфавиту без учёта регистра
+    private static final int[] SPHERE_SORT_RANKS = new int[SPHERES.length];
+
+    static {
+        String[] alphabetical = SPHERES.clone();
+        Arrays.sort(alphabetical, String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < SPHERES.length; i++) {
+            SPHERE_SORT_RANKS[i] = Arrays.asList(alphabetical).indexOf(SPHERES[i]);
+        }
+    }
+
+    // Встроенные группы заводятся первыми, поэтому их номера постоянны
+    private static final int IMPORTANCE_ORDINAL = 0;
+    private static final int URGENCY_ORDINAL = 1;
+    private static final int SPHERE_ORDINAL = 2;
+
+    private static final TagDictionary INSTANCE = new TagDictionary();
+
+    /** Неизменяемый срез словаря: всё с индексом меньше size уже не меняется. */
+    private static final class Snapshot {
+        final int size;
+        final String[] groups;
+        final String[] names;
+        final int[] groupOrdinals;
+        final int[] ranks;
+        final int groupCount;
+        final String[] groupNames;
+        // Сколько тегов в каждой группе – ранг следующего тега
+        final int[] groupSizes;
+
+        Snapshot(int size, String[] groups, String[] names, int[] groupOrdinals, int[] ranks,
+                 int groupCount, String[] groupNames, int[] groupSizes) {
+            this.size = size;
+            this.groups = groups;
+            this.names = names;
+            this.groupOrdinals = groupOrdinals;
+            this.ranks = ranks;
+            this.groupCount = groupCount;
+            this.groupNames = groupNames;
+            this.groupSizes = groupSizes;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(0, new String[16], new String[16], new int[16], new int[16],
+            0, new String[4], new int[4]);
+    // Только дописывается; id кладётся сюда после публикации снимка с этим тегом
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final Map<String, Integer> groupOrdinalsByName = new ConcurrentHashMap<>();
+
+    private TagDictionary() {
+        for (String level : IMPORTANCE_LEVELS) {
+            intern(GROUP_IMPORTANCE, level);
+        }
+        for (String level : URGENCY_LEVELS) {
+            intern(GROUP_URGENCY, level);
+        }
+        for (String sphere : SPHERES) {
+            intern(GROUP_SPHERE, sphere);
+        }
+    }
+
+    public static TagDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Возвращает id пары (группа, тег), заводя новый при первом обращении.
+     * Уже известный тег находится без блокировки.
+     */
+    public int intern(String group, String tag) {
+        String key = group + '\u0000' + tag;
+        Integer id = idsByKey.get(key);
+        return id != null ? id : add(key, group, tag);
+    }
+
+    /**
+     * id уже известной пары (группа, тег) или -1; в отличие от intern словарь не меняет.
+     */
+    public int find(String group, String tag) {
+        Integer id = idsByKey.get(group + '\u0000' + tag);
+        return id != null ? id : -1;
+    }
+
+    private synchronized int add(String key, String group, String tag) {
+        Integer existing = idsByKey.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Snapshot current = snapshot;
+        int id = current.size;
+        String[] groups = grow(current.groups, id + 1);
+        String[] names = grow(current.names, id + 1);
+        int[] groupOrdinals = grow(current.groupOrdinals, id + 1);
+        int[] ranks = grow(current.ranks, id + 1);
+
+        Integer ordinal = groupOrdinalsByName.get(group);
+        int groupCount = current.groupCount;
+        String[] groupNames = current.groupNames;
+        int[] groupSizes = current.groupSizes;
+        if (ordinal == null) {
+            ordinal = groupCount++;
+            groupNames = grow(groupNames, groupCount);
+            groupNames[ordinal] = group.intern();
+        }
+        // Счётчики групп меняются у существующих записей, поэтому их копируем всегда
+        groupSizes = Arrays.copyOf(groupSizes, Math.max(groupSizes.length, groupNames.length));
+
+        groups[id] = groupNames[ordinal];
+        names[id] = tag.intern();
+        groupOrdinals[id] = ordinal;
+        ranks[id] = groupSizes[ordinal]++;
+
+        snapshot = new Snapshot(id + 1, groups, names, groupOrdinals, ranks, groupCount, groupNames, groupSizes);
+        groupOrdinalsByName.putIfAbsent(group, ordinal);
+        idsByKey.put(key, id);
+        return id;
+    }
+
+    public String getName(int id) {
+        return snapshot.names[id];
+    }
+
+    public String getGroup(int id) {
+        return snapshot.groups[id];
+    }
+
+    /** Порядковый номер группы тега в порядке появления групп (для группировки в списках). */
+    public int getGroupOrdinal(int id) {
+        return snapshot.groupOrdinals[id];
+    }
+
+    /**
+     * Ранг тега внутри его группы: порядок, в котором теги группы добавлялись. Работает для
+     * любой группы; сортировка задач по нему – TaskSorter.sortByGroup.
+     */
+    public int getRank(int id) {
+        return snapshot.ranks[id];
+    }
+
+    /** Номер группы по имени или -1, если такой группы нет. */
+    public int findGroup(String group) {
+        Integer ordinal = groupOrdinalsByName.get(group);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    public int groupCount() {
+        return snapshot.groupCount;
+    }
+
+    public String getGroupName(int ordinal) {
+        return snapshot.groupNames[ordinal];
+    }
+
+    /** Уровень важности тега (0..3) или NO_LEVEL. */
+    public int getImportanceLevel(int id) {
+        return builtInLevel(snapshot, id, IMPORTANCE_ORDINAL, IMPORTANCE_LEVELS.length);
+    }
+
+    /** Уровень срочности тега (0..2) или NO_LEVEL. */
+    public int getUrgencyLevel(int id) {
+        return builtInLevel(snapshot, id, URGENCY_ORDINAL, URGENCY_LEVELS.length);
+    }
+
+    /** Алфавитный ранг сферы (0..6) или NO_LEVEL, если тег не сфера. */
+    public int getSphereRank(int id) {
+        int rank = builtInLevel(snapshot, id, SPHERE_ORDINAL, SPHERES.length);
+        return rank == NO_LEVEL ? NO_LEVEL : SPHERE_SORT_RANKS[rank];
+    }
+
+    public static int importanceLevelCount() {
+        return IMPORTANCE_LEVELS.length;
+    }
+
+    public static int urgencyLevelCount() {
+        return URGENCY_LEVELS.length;
+    }
+
+    public static int sphereCount() {
+        return SPHERES.length;
+    }
+
+    // Свои теги во встроенных группах идут после встроенных и уровня не имеют,
+    // поэтому сортировка подсчётом по count корзинам остаётся верной
+    private static int builtInLevel(Snapshot snapshot, int id, int groupOrdinal, int count) {
+        if (snapshot.groupOrdinals[id] != groupOrdinal) {
+            return NO_LEVEL;
+        }
+        int rank = snapshot.ranks[id];
+        return rank < count ? rank : NO_LEVEL;
+    }
+
+    private static String[] grow(String[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private static int[] grow(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+}
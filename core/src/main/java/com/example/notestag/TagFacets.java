@@ -0,0 +1,58 @@
+package com.example.notestag;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Счётчики "сколько задач с этим тегом" по набору задач (в приложении – по видимому списку).
+ * Раз видимый список уже учитывает текущий фильтр, count(tagId) – это сколько задач
+ * останется, если добавить тег к фильтру. Обновляется по одной задаче за O(тегов задачи).
+ */
+public class TagFacets {
+
+    private int[] counts = new int[16];
+
+    public static TagFacets of(List<Task> tasks) {
+        TagFacets facets = new TagFacets();
+        for (Task task : tasks) {
+            facets.add(task);
+        }
+        return facets;
+    }
+
+    public void add(Task task) {
+        update(task, 1);
+    }
+
+    public void remove(Task task) {
+        update(task, -1);
+    }
+
+    public int count(int tagId) {
+        return tagId < counts.length ? counts[tagId] : 0;
+    }
+
+    private void update(Task task, int delta) {
+        int[] tagIds = task.getTagIds();
+        for (int i = 0; i < tagIds.length; i++) {
+            int tagId = tagIds[i];
+            if (isRepeated(tagIds, i)) {
+                continue;
+            }
+            if (tagId >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(tagId + 1, counts.length * 2));
+            }
+            counts[tagId] += delta;
+        }
+    }
+
+    // Один и тот же тег у задачи считаем один раз
+    private static boolean isRepeated(int[] tagIds, int index) {
+        for (int i = 0; i < index; i++) {
+            if (tagIds[i] == tagIds[index]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
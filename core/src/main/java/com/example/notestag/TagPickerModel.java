@@ -0,0 +1,149 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Модель выбора тегов: группы в порядке добавления, теги в каждой группе и набор выбранных id.
+ * Для списка модель держит плоские строки с учётом фильтра: заголовок группы, за ним её теги.
+ * Выбранные теги читаются из модели за O(выбранных), а не обходом View.
+ */
+public class TagPickerModel {
+
+    /** Тип строки: заголовок группы или тег. */
+    public static final int ROW_HEADER = 0;
+    public static final int ROW_TAG = 1;
+
+    private final Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    private final List<String> groupNames = new ArrayList<>();
+    private final Set<Integer> selected = new LinkedHashSet<>();
+    private String filter = "";
+    // Строки после фильтра: id тега или -1 - номер группы для заголовка
+    private int[] rows = new int[0];
+    private int rowCount;
+    // Строки пересобираются лениво, при первом обращении после изменения
+    private boolean rowsDirty;
+
+    /**
+     * Добавляет тег в группу (если его там ещё нет) и возвращает его id из TagDictionary.
+     */
+    public int addTag(String group, String tag) {
+        int tagId = TagDictionary.getInstance().intern(group, tag);
+        List<Integer> tags = groups.get(group);
+        if (tags == null) {
+            tags = new ArrayList<>();
+            groups.put(group, tags);
+            groupNames.add(group);
+        }
+        if (!tags.contains(tagId)) {
+            tags.add(tagId);
+            rowsDirty = true;
+        }
+        return tagId;
+    }
+
+    public boolean isSelected(int tagId) {
+        return selected.contains(tagId);
+    }
+
+    public void setSelected(int tagId, boolean isSelected) {
+        if (isSelected) {
+            selected.add(tagId);
+        } else {
+            selected.remove(tagId);
+        }
+    }
+
+    /**
+     * id выбранных тегов в порядке выбора.
+     */
+    public int[] getSelectedIds() {
+        int[] ids = new int[selected.size()];
+        int i = 0;
+        for (int tagId : selected) {
+            ids[i++] = tagId;
+        }
+        return ids;
+    }
+
+    /**
+     * Оставляет теги, в названии которых есть текст фильтра, и все теги групп,
+     * в названии которых он есть. Пустые после фильтра группы скрываются.
+     */
+    public void setFilter(String text) {
+        String normalized = normalize(text);
+        if (!normalized.equals(filter)) {
+            filter = normalized;
+            rowsDirty = true;
+        }
+    }
+
+    public int getRowCount() {
+        ensureRows();
+        return rowCount;
+    }
+
+    public int getRowType(int row) {
+        ensureRows();
+        return rows[row] < 0 ? ROW_HEADER : ROW_TAG;
+    }
+
+    /** Название группы для заголовка. */
+    public String getGroupName(int row) {
+        ensureRows();
+        return groupNames.get(-1 - rows[row]);
+    }
+
+    /** Стабильный id строки: id тега или отрицательное число для заголовка группы. */
+    public long getRowId(int row) {
+        ensureRows();
+        return rows[row];
+    }
+
+    /** id тега для строки-тега. */
+    public int getTagId(int row) {
+        ensureRows();
+        return rows[row];
+    }
+
+    private void ensureRows() {
+        if (!rowsDirty) {
+            return;
+        }
+        rowsDirty = false;
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int size = 0;
+        for (int group = 0; group < groupNames.size(); group++) {
+            String groupName = groupNames.get(group);
+            List<Integer> tags = groups.get(groupName);
+            boolean groupMatches = filter.isEmpty() || normalize(groupName).contains(filter);
+            boolean any = false;
+            for (int tagId : tags) {
+                if (groupMatches || normalize(dictionary.getName(tagId)).contains(filter)) {
+                    if (!any) {
+                        rows = ensureCapacity(rows, size + 1);
+                        rows[size++] = -1 - group;
+                        any = true;
+                    }
+                    rows = ensureCapacity(rows, size + 1);
+                    rows[size++] = tagId;
+                }
+            }
+        }
+        rowCount = size;
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.notestag;
+
+import com.example.notestag.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Подсказка тегов по набираемому названию задачи. По истории задач считаются
+ * "слово названия -> теги" и совместная встречаемость тегов (разреженная матрица по id),
+ * плюс общая частота тегов. Счётчики меняются только на своём фоновом потоке; в конце
+ * каждой пачки он собирает новый неизменяемый снимок Model: строки с первыми ROW_SIZE
+ * тегами берёт из прошлого снимка, пересчитывая только затронутые ключи, и публикует его
+ * одной volatile-ссылкой. suggest() читает согласованный снимок без блокировок и ничего
+ * не пересчитывает; rebuild() собирает снимок с нуля в стороне, так что до его публикации
+ * подсказки идут по прежней модели, а не пропадают.
+ */
+public final class TagSuggester {
+
+    // Сколько лучших тегов храним в строке на слово и на тег
+    private static final int ROW_SIZE = 16;
+    // Недописанное последнее слово раскрываем не больше чем в столько слов словаря
+    private static final int MAX_PREFIX_TERMS = 8;
+    private static final float TOKEN_WEIGHT = 1f;
+    private static final float SELECTED_WEIGHT = 0.5f;
+    private static final float POPULAR_WEIGHT = 0.05f;
+
+    private static final TagSuggester INSTANCE = new TagSuggester();
+
+    /** Лучшие теги для одного ключа: id и доля задач ключа с этим тегом, по убыванию. */
+    private static final class Row {
+        static final Row EMPTY = new Row(0, new int[0], new float[0]);
+
+        final int total;
+        final int[] tagIds;
+        final float[] weights;
+
+        Row(int total, int[] tagIds, float[] weights) {
+            this.total = total;
+            this.tagIds = tagIds;
+            this.weights = weights;
+        }
+    }
+
+    /** Опубликованная модель: карты после публикации не меняются. */
+    private static final class Model {
+        static final Model EMPTY = new Model(Collections.emptyNavigableMap(), Collections.emptyMap(), Row.EMPTY);
+
+        // Слова отсортированы – для недописанного последнего слова
+        final NavigableMap<String, Row> tokenRows;
+        final Map<Integer, Row> cooccurrenceRows;
+        final Row popularRow;
+
+        Model(NavigableMap<String, Row> tokenRows, Map<Integer, Row> cooccurrenceRows, Row popularRow) {
+            this.tokenRows = tokenRows;
+            this.cooccurrenceRows = cooccurrenceRows;
+            this.popularRow = popularRow;
+        }
+    }
+
+    /** Счётчики одного ключа; меняются только на потоке модели. */
+    private static final class Counts {
+        int total;
+        final Map<Integer, int[]> byTag = new HashMap<>();
+
+        void add(int tagId, int delta) {
+            int[] count = byTag.get(tagId);
+            if (count == null) {
+                if (delta > 0) {
+                    byTag.put(tagId, new int[]{delta});
+                }
+            } else if ((count[0] += delta) <= 0) {
+                byTag.remove(tagId);
+            }
+        }
+
+        Row toRow() {
+            List<Map.Entry<Integer, int[]>> entries = new ArrayList<>(byTag.entrySet());
+            entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                    ? Integer.compare(b.getValue()[0], a.getValue()[0])
+                    : Integer.compare(a.getKey(), b.getKey()));
+            int size = Math.min(ROW_SIZE, entries.size());
+            int[] tagIds = new int[size];
+            float[] weights = new float[size];
+            for (int i = 0; i < size; i++) {
+                tagIds[i] = entries.get(i).getKey();
+                weights[i] = entries.get(i).getValue()[0] / (float) total;
+            }
+            return new Row(total, tagIds, weights);
+        }
+    }
+
+    private final ExecutorService modelExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tag-suggest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Публикует поток модели, читает suggest()
+    private volatile Model model = Model.EMPTY;
+
+    // Дальше – только поток модели
+    private final Map<String, Counts> tokenCounts = new HashMap<>();
+    private final Map<Integer, Counts> tagCounts = new HashMap<>();
+    private Counts popularCounts = new Counts();
+
+    public static TagSuggester getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Учитывает новые задачи (сохранение, импорт). Счёт идёт в фоне, подсказки
+     * увидят их после конца пачки.
+     */
+    public void observe(Collection<Task> tasks) {
+        submit(tasks, 1, false);
+    }
+
+    /**
+     * Вычитает удалённые задачи – их слова и теги перестают влиять на подсказки.
+     */
+    public void forget(Collection<Task> tasks) {
+        submit(tasks, -1, false);
+    }
+
+    /**
+     * Пересчитывает модель заново по всей истории – при загрузке списка задач.
+     */
+    public void rebuild(Collection<Task> tasks) {
+        submit(tasks, 1, true);
+    }
+
+    private void submit(Collection<Task> tasks, int delta, boolean reset) {
+        List<Task> batch = new ArrayList<>(tasks);
+        modelExecutor.execute(() -> {
+            if (reset) {
+                // Опубликованный снимок не трогаем: новый соберётся с нуля и заменит его целиком
+                tokenCounts.clear();
+                tagCounts.clear();
+                popularCounts = new Counts();
+            }
+            Set<String> dirtyTokens = new HashSet<>();
+            Set<Integer> dirtyTags = new HashSet<>();
+            for (Task task : batch) {
+                count(task, delta, dirtyTokens, dirtyTags);
+            }
+            publish(reset ? Model.EMPTY : model, dirtyTokens, dirtyTags);
+        });
+    }
+
+    /**
+     * Ждёт, пока опубликуются все ранее переданные задачи – для бенчмарков и проверок.
+     */
+    public void awaitPublished() throws InterruptedException {
+        try {
+            modelExecutor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void count(Task task, int delta, Set<String> dirtyTokens, Set<Integer> dirtyTags) {
+        int[] tagIds = task.getTagIds();
+        if (tagIds.length == 0) {
+            return;
+        }
+        for (String token : new LinkedHashSet<>(TextIndex.tokenize(task.getTitle()))) {
+            Counts counts = counts(tokenCounts, token, delta);
+            if (counts == null) {
+                continue;
+            }
+            counts.total += delta;
+            for (int tagId : tagIds) {
+                counts.add(tagId, delta);
+            }
+            dirtyTokens.add(token);
+        }
+        popularCounts.total += delta;
+        for (int tagId : tagIds) {
+            popularCounts.add(tagId, delta);
+            Counts counts = counts(tagCounts, tagId, delta);
+            if (counts == null) {
+                continue;
+            }
+            counts.total += delta;
+            for (int other : tagIds) {
+                if (other != tagId) {
+                    counts.add(other, delta);
+                }
+            }
+            dirtyTags.add(tagId);
+        }
+    }
+
+    // Вычитать можно только из уже посчитанного ключа
+    private static <K> Counts counts(Map<K, Counts> all, K key, int delta) {
+        Counts counts = all.get(key);
+        if (counts == null && delta > 0) {
+            counts = new Counts();
+            all.put(key, counts);
+        }
+        return counts;
+    }
+
+    // Строки копируются из base, пересчитываются только ключи, затронутые пачкой; ключ без
+    // задач исчезает. Готовый снимок публикуется одной записью в model
+    private void publish(Model base, Set<String> dirtyTokens, Set<Integer> dirtyTags) {
+        NavigableMap<String, Row> tokenRows = new TreeMap<>(base.tokenRows);
+        for (String token : dirtyTokens) {
+            Counts counts = tokenCounts.get(token);
+            if (counts.total > 0) {
+                tokenRows.put(token, counts.toRow());
+            } else {
+                tokenCounts.remove(token);
+                tokenRows.remove(token);
+            }
+        }
+        Map<Integer, Row> cooccurrenceRows = new HashMap<>(base.cooccurrenceRows);
+        for (int tagId : dirtyTags) {
+            Counts counts = tagCounts.get(tagId);
+            if (counts.total > 0) {
+                cooccurrenceRows.put(tagId, counts.toRow());
+            } else {
+                tagCounts.remove(tagId);
+                cooccurrenceRows.remove(tagId);
+            }
+        }
+        Row popularRow = base.popularRow;
+        if (!dirtyTags.isEmpty()) {
+            popularRow = popularCounts.total > 0 ? popularCounts.toRow() : Row.EMPTY;
+        }
+        model = new Model(Collections.unmodifiableNavigableMap(tokenRows),
+                Collections.unmodifiableMap(cooccurrenceRows), popularRow);
+    }
+
+    /**
+     * До limit тегов для задачи с названием title, кроме уже выбранных selected, лучшие первыми.
+     * Слова названия голосуют своими тегами, выбранные теги – соседями по задачам, общая
+     * частота разводит равные. Последнее слово без пробела после него считается недописанным.
+     */
+    public List<Integer> suggest(String title, Collection<Integer> selected, int limit) {
+        long start = Metrics.begin("TagSuggester.suggest");
+        try {
+            // Один снимок на весь вызов: строки слов и тегов из одной и той же пачки
+            Model current = model;
+            Map<Integer, float[]> scores = new HashMap<>();
+            List<String> tokens = TextIndex.tokenize(title);
+            boolean lastPartial = !tokens.isEmpty() && title != null && !title.isEmpty()
+                    && Character.isLetterOrDigit(title.charAt(title.length() - 1));
+            int complete = lastPartial ? tokens.size() - 1 : tokens.size();
+            for (int i = 0; i < complete; i++) {
+                Row row = current.tokenRows.get(tokens.get(i));
+                if (row != null) {
+                    addRow(scores, row, TOKEN_WEIGHT);
+                }
+            }
+            if (lastPartial) {
+                addPrefix(scores, current.tokenRows, tokens.get(tokens.size() - 1));
+            }
+            for (int tagId : selected) {
+                Row row = current.cooccurrenceRows.get(tagId);
+                if (row != null) {
+                    addRow(scores, row, SELECTED_WEIGHT);
+                }
+            }
+            addRow(scores, current.popularRow, POPULAR_WEIGHT);
+            for (int tagId : selected) {
+                scores.remove(tagId);
+            }
+            List<Map.Entry<Integer, float[]>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                    ? Float.compare(b.getValue()[0], a.getValue()[0])
+                    : Integer.compare(a.getKey(), b.getKey()));
+            List<Integer> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && result.size() < limit; i++) {
+                result.add(ranked.get(i).getKey());
+            }
+            return result;
+        } finally {
+            Metrics.end(Metrics.SUGGEST_TIME, start);
+        }
+    }
+
+    /**
+     * Недописанное слово – все слова словаря с этим началом (до MAX_PREFIX_TERMS) как
+     * одно слово: вклад каждого пропорционален числу его задач.
+     */
+    private static void addPrefix(Map<Integer, float[]> scores, NavigableMap<String, Row> tokenRows,
+                                  String prefix) {
+        List<Row> rows = new ArrayList<>(MAX_PREFIX_TERMS);
+        long total = 0;
+        for (Map.Entry<String, Row> entry : tokenRows.tailMap(prefix, true).entrySet()) {
+            if (rows.size() == MAX_PREFIX_TERMS || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            rows.add(entry.getValue());
+            total += entry.getValue().total;
+        }
+        for (Row row : rows) {
+            addRow(scores, row, TOKEN_WEIGHT * row.total / total);
+        }
+    }
+
+    private static void addRow(Map<Integer, float[]> scores, Row row, float weight) {
+        for (int i = 0; i < row.tagIds.length; i++) {
+            float[] score = scores.get(row.tagIds[i]);
+            if (score == null) {
+                scores.put(row.tagIds[i], new float[]{weight * row.weights[i]});
+            } else {
+                score[0] += weight * row.weights[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Task {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    // Стабильный id: по нему адаптер узнаёт задачу между обновлениями списка
+    private final long id;
+    private final String title;
+    private final String description;
+    // 0 - не начата, 1 - в процессе, 2 - готова
+    public static final int STATUS_NOT_STARTED = 0;
+    public static final int STATUS_IN_PROGRESS = 1;
+    public static final int STATUS_DONE = 2;
+
+    // Статус меняется на UI-потоке, а читается и фильтром/сортировкой в фоне
+    private volatile int status;
+    // id тегов из TagDictionary; строки getTags() раскодирует при каждом вызове и не хранит,
+    // чтобы задача в памяти оставалась массивом int
+    private final int[] tagIds;
+    private final long createdAt;
+    // Ключи сортировки, посчитанные один раз по тегам (см. TaskSorter)
+    private final byte importanceLevel;
+    private final byte urgencyLevel;
+    private final byte sphereRank;
+
+    public Task(String title, String description, int[] tagIds) {
+        this(title, description, tagIds, System.currentTimeMillis());
+    }
+
+    /**
+     * Новая задача с новым id, но с уже известной датой создания (например, из импорта).
+     */
+    public Task(String title, String description, int[] tagIds, long createdAt) {
+        this(NEXT_ID.getAndIncrement(), title, description, tagIds, createdAt);
+    }
+
+    /**
+     * Восстановление уже существующей задачи (например, из хранилища) с её id и датой.
+     */
+    public Task(long id, String title, String description, int[] tagIds, long createdAt) {
+        // Новые задачи не должны получить id, который уже занят восстановленными
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.tagIds = tagIds;
+        this.status = STATUS_NOT_STARTED;
+        this.createdAt = createdAt;
+
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int importance = TagDictionary.NO_LEVEL;
+        int urgency = TagDictionary.NO_LEVEL;
+        int sphere = TagDictionary.NO_LEVEL;
+        for (int tagId : tagIds) {
+            importance = Math.max(importance, dictionary.getImportanceLevel(tagId));
+            urgency = Math.max(urgency, dictionary.getUrgencyLevel(tagId));
+            // Сфера – первый встретившийся тег-сфера, как и раньше
+            if (sphere == TagDictionary.NO_LEVEL) {
+                sphere = dictionary.getSphereRank(tagId);
+            }
+        }
+        this.importanceLevel = (byte) importance;
+        this.urgencyLevel = (byte) urgency;
+        this.sphereRank = (byte) sphere;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        if (!isValidStatus(status)) {
+            throw new IllegalArgumentException("Unknown status: " + status);
+        }
+        this.status = status;
+    }
+
+    public static boolean isValidStatus(long status) {
+        return status >= STATUS_NOT_STARTED && status <= STATUS_DONE;
+    }
+
+    public int[] getTagIds() {
+        return tagIds;
+    }
+
+    public boolean hasTag(int tagId) {
+        for (int id : tagIds) {
+            if (id == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Есть ли у задачи все теги фильтра (пустой фильтр пропускает любую задачу).
+     */
+    public boolean hasAllTags(Iterable<Integer> filterTags) {
+        for (int tagId : filterTags) {
+            if (!hasTag(tagId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<String> getTags() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<String> tags = new ArrayList<>(tagIds.length);
+        for (int id : tagIds) {
+            tags.add(dictionary.getName(id));
+        }
+        return Collections.unmodifiableList(tags);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getImportanceLevel() {
+        return importanceLevel;
+    }
+
+    public int getUrgencyLevel() {
+        return urgencyLevel;
+    }
+
+    public int getSphereRank() {
+        return sphereRank;
+    }
+}
+
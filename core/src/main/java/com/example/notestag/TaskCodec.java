@@ -0,0 +1,215 @@
+package com.example.notestag;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Компактный бинарный формат задачи, общий для Parcelable, хранилища и экспорта.
+ * <pre>
+ * [версия:1][id:varlong][createdAt:varlong][статус:1]
+ * [название:str][описание:str][число тегов:varint]{[группа:str][тег:str]}
+ * str = [длина в байтах UTF-8:varint][UTF-8]
+ * </pre>
+ * Теги пишутся строками: id из TagDictionary действуют только внутри процесса,
+ * при чтении они снова интернируются в словарь.
+ */
+public final class TaskCodec {
+
+    public static final byte VERSION = 1;
+
+    private TaskCodec() {
+    }
+
+    public static byte[] encode(Task task) {
+        return encode(task, task.getStatus());
+    }
+
+    /**
+     * Кодирует задачу с явно переданным статусом (статус меняется на UI-потоке,
+     * а запись может идти на фоновом).
+     */
+    public static byte[] encode(Task task, int status) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(task));
+        encode(task, status, out);
+        return out.array();
+    }
+
+    public static void encode(Task task, ByteBuffer out) {
+        encode(task, task.getStatus(), out);
+    }
+
+    public static void encode(Task task, int status, ByteBuffer out) {
+        out.put(VERSION);
+        putVarLong(out, task.getId());
+        putVarLong(out, task.getCreatedAt());
+        out.put((byte) status);
+        putString(out, task.getTitle());
+        putString(out, task.getDescription());
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] tagIds = task.getTagIds();
+        putVarLong(out, tagIds.length);
+        for (int tagId : tagIds) {
+            putString(out, dictionary.getGroup(tagId));
+            putString(out, dictionary.getName(tagId));
+        }
+    }
+
+    /**
+     * Точный размер задачи в байтах, чтобы буфер можно было выделить один раз.
+     */
+    public static int encodedSize(Task task) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] tagIds = task.getTagIds();
+        int size = 1 + varLongSize(task.getId()) + varLongSize(task.getCreatedAt()) + 1
+                + stringSize(task.getTitle()) + stringSize(task.getDescription())
+                + varLongSize(tagIds.length);
+        for (int tagId : tagIds) {
+            size += stringSize(dictionary.getGroup(tagId)) + stringSize(dictionary.getName(tagId));
+        }
+        return size;
+    }
+
+    public static Task decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Читает задачу с текущей позиции буфера.
+     *
+     * @throws IllegalArgumentException если версия или статус неизвестны или данные обрезаны
+     */
+    public static Task decode(ByteBuffer in) {
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown task format version " + version);
+            }
+            long id = getVarLong(in);
+            long createdAt = getVarLong(in);
+            int status = in.get();
+            if (!Task.isValidStatus(status)) {
+                throw new IllegalArgumentException("Unknown status: " + status);
+            }
+            String title = getString(in);
+            String description = getString(in);
+            TagDictionary dictionary = TagDictionary.getInstance();
+            int[] tagIds = new int[getLength(in)];
+            for (int i = 0; i < tagIds.length; i++) {
+                String group = getString(in);
+                tagIds[i] = dictionary.intern(group, getString(in));
+            }
+            Task task = new Task(id, title, description, tagIds, createdAt);
+            task.setStatus(status);
+            return task;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated task record", e);
+        }
+    }
+
+    private static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int getLength(ByteBuffer in) {
+        long length = getVarLong(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Bad length " + length);
+        }
+        return (int) length;
+    }
+
+    // UTF-8 пишем вручную прямо в буфер, без промежуточного byte[]
+    private static void putString(ByteBuffer out, String value) {
+        putVarLong(out, utf8Length(value));
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?'); // одиночный суррогат заменяем, как и String.getBytes
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = getLength(in);
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            value = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int stringSize(String value) {
+        int utf8 = utf8Length(value);
+        return varLongSize(utf8) + utf8;
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
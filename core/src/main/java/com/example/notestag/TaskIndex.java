@@ -0,0 +1,336 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Инвертированный индекс "тег -> задачи".
+ * Каждой задаче выдаётся порядковый слот, для каждого id тега храним BitSet слотов.
+ * Фильтр по нескольким тегам – пересечение (AND) этих BitSet.
+ * Слоты выдаются по порядку добавления, поэтому результат идёт в том же порядке, что и allTasks.
+ * Статус и дата создания лежат столбцами по слотам – по ним работают составные запросы
+ * TaskQuery (см. QueryPlan).
+ * Методы синхронизированы: индекс меняется на UI-потоке, а читается из TaskQueryEngine.
+ */
+public class TaskIndex {
+
+    // Компактируем, когда "дыр" от удалённых задач становится больше половины
+    private static final int MIN_SLOTS_FOR_COMPACTION = 64;
+    // С какого размера фильтруем параллельно и какими кусками
+    static final int PARALLEL_THRESHOLD = 100_000;
+    private static final int CHUNK_SLOTS = 32 * 1024;
+
+    private final List<Task> slots = new ArrayList<>();
+    private final Map<Task, Integer> slotByTask = new IdentityHashMap<>();
+    // postings.get(tagId) – слоты задач с этим тегом (null, если таких задач нет)
+    private final List<BitSet> postings = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final TextIndex textIndex = new TextIndex();
+    // Столбцы по слотам и постинги статусов; статус меняется через updateStatus
+    private long[] createdAts = new long[16];
+    private byte[] statuses = new byte[16];
+    private final BitSet[] statusPostings = {new BitSet(), new BitSet(), new BitSet()};
+    private final int parallelThreshold;
+
+    public TaskIndex() {
+        this(PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Индекс со своим порогом параллельной фильтрации – для сравнения путей в бенчмарках
+     * (Integer.MAX_VALUE – всегда последовательно, 0 – всегда параллельно).
+     */
+    public TaskIndex(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public synchronized void add(Task task) {
+        addSlot(task);
+    }
+
+    /**
+     * Добавляет пачку задач под одной блокировкой – запрос не увидит её наполовину.
+     */
+    public synchronized void addAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            addSlot(task);
+        }
+    }
+
+    private void addSlot(Task task) {
+        if (slotByTask.containsKey(task)) {
+            return;
+        }
+        int slot = slots.size();
+        slots.add(task);
+        slotByTask.put(task, slot);
+        live.set(slot);
+        for (int tagId : task.getTagIds()) {
+            while (postings.size() <= tagId) {
+                postings.add(null);
+            }
+            BitSet posting = postings.get(tagId);
+            if (posting == null) {
+                posting = new BitSet();
+                postings.set(tagId, posting);
+            }
+            posting.set(slot);
+        }
+        if (slot == createdAts.length) {
+            createdAts = Arrays.copyOf(createdAts, slot * 2);
+            statuses = Arrays.copyOf(statuses, slot * 2);
+        }
+        createdAts[slot] = task.getCreatedAt();
+        statuses[slot] = (byte) task.getStatus();
+        statusPostings[task.getStatus()].set(slot);
+        textIndex.add(slot, task);
+    }
+
+    public synchronized void remove(Task task) {
+        removeSlot(task);
+        compactIfSparse();
+    }
+
+    public synchronized void removeAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            removeSlot(task);
+        }
+        compactIfSparse();
+    }
+
+    private void removeSlot(Task task) {
+        Integer slot = slotByTask.remove(task);
+        if (slot == null) {
+            return;
+        }
+        slots.set(slot, null);
+        live.clear(slot);
+        for (int tagId : task.getTagIds()) {
+            BitSet posting = postings.get(tagId);
+            if (posting != null) {
+                posting.clear(slot);
+                if (posting.isEmpty()) {
+                    postings.set(tagId, null);
+                }
+            }
+        }
+        statusPostings[statuses[slot]].clear(slot);
+        textIndex.remove(slot, task);
+    }
+
+    /**
+     * Переносит задачи в постинги их текущего статуса (после Task.setStatus).
+     */
+    public synchronized void updateStatus(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            Integer slot = slotByTask.get(task);
+            if (slot == null || statuses[slot] == task.getStatus()) {
+                continue;
+            }
+            statusPostings[statuses[slot]].clear(slot);
+            statuses[slot] = (byte) task.getStatus();
+            statusPostings[task.getStatus()].set(slot);
+        }
+    }
+
+    private void compactIfSparse() {
+        if (slots.size() > MIN_SLOTS_FOR_COMPACTION && slotByTask.size() < slots.size() / 2) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return slotByTask.size();
+    }
+
+    /**
+     * id тегов, которые встречаются хотя бы у одной задачи.
+     */
+    public synchronized List<Integer> tagIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int tagId = 0; tagId < postings.size(); tagId++) {
+            if (postings.get(tagId) != null) {
+                ids.add(tagId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Задачи, у которых есть все теги из filterTags (пустой фильтр – все задачи).
+     */
+    public List<Task> query(Collection<Integer> filterTags) {
+        return query(filterTags, null);
+    }
+
+    /**
+     * То же, плюс текстовый поиск: каждое слово searchText должно быть началом
+     * какого-нибудь слова в названии или описании. Пустой поиск ничего не отсекает.
+     * На больших индексах пересечение и сборка результата идут параллельно по кускам слотов.
+     */
+    public synchronized List<Task> query(Collection<Integer> filterTags, String searchText) {
+        List<BitSet> lists = postingsFor(filterTags);
+        if (lists == null) {
+            return new ArrayList<>();
+        }
+        BitSet textMatches = textIndex.match(searchText);
+        if (textMatches != null) {
+            lists.add(0, textMatches);
+        }
+        if (slots.size() >= parallelThreshold) {
+            return ForkJoinPool.commonPool().invoke(new MatchTask(slots, live, lists, 0, slots.size()));
+        }
+        return matchRange(slots, live, lists, 0, slots.size());
+    }
+
+    /**
+     * Составной запрос: компилируется в QueryPlan и выполняется над постингами и столбцами
+     * под блокировкой индекса, сортировка из запроса – уже после неё.
+     */
+    public List<Task> query(TaskQuery query) {
+        QueryPlan plan;
+        List<Task> tasks;
+        synchronized (this) {
+            plan = QueryPlan.compile(this, query);
+            tasks = plan.filter();
+        }
+        return plan.order(tasks);
+    }
+
+    /**
+     * План запроса по текущему состоянию индекса – порядок шагов и оценки, для отладки.
+     */
+    public synchronized String explain(TaskQuery query) {
+        return QueryPlan.compile(this, query).toString();
+    }
+
+    // Доступ для QueryPlan, только под блокировкой индекса
+
+    BitSet liveSlots() {
+        return live;
+    }
+
+    BitSet posting(int tagId) {
+        return tagId >= 0 && tagId < postings.size() ? postings.get(tagId) : null;
+    }
+
+    BitSet statusPosting(int status) {
+        return statusPostings[status];
+    }
+
+    long[] createdAtColumn() {
+        return createdAts;
+    }
+
+    BitSet textMatch(String text) {
+        return textIndex.match(text);
+    }
+
+    List<Task> tasksAt(BitSet bits) {
+        List<Task> tasks = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            tasks.add(slots.get(slot));
+        }
+        return tasks;
+    }
+
+    /**
+     * Постинги фильтра от самого короткого к самому длинному (пустой список – фильтра нет),
+     * или null, если какого-то тега нет ни у одной задачи.
+     */
+    private List<BitSet> postingsFor(Collection<Integer> filterTags) {
+        List<BitSet> lists = new ArrayList<>(filterTags.size());
+        for (int tagId : filterTags) {
+            BitSet posting = tagId < postings.size() ? postings.get(tagId) : null;
+            if (posting == null) {
+                return null;
+            }
+            lists.add(posting);
+        }
+        // Начинаем с самого короткого списка, чтобы пересечение сразу было маленьким
+        lists.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        return lists;
+    }
+
+    private static List<Task> matchRange(List<Task> slots, BitSet live, List<BitSet> lists, int from, int to) {
+        BitSet result;
+        if (lists.isEmpty()) {
+            result = live.get(from, to);
+        } else {
+            result = lists.get(0).get(from, to);
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.and(lists.get(i).get(from, to));
+            }
+        }
+        List<Task> tasks = new ArrayList<>(result.cardinality());
+        for (int bit = result.nextSetBit(0); bit >= 0; bit = result.nextSetBit(bit + 1)) {
+            tasks.add(slots.get(from + bit));
+        }
+        return tasks;
+    }
+
+    /**
+     * Делит диапазон слотов пополам до CHUNK_SLOTS; куски склеиваются по порядку,
+     * так что результат совпадает с последовательным.
+     */
+    private static final class MatchTask extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        // Задача живёт только внутри query() под блокировкой индекса и не сериализуется
+        private final transient List<Task> slots;
+        private final transient BitSet live;
+        private final transient List<BitSet> lists;
+        private final int from;
+        private final int to;
+
+        MatchTask(List<Task> slots, BitSet live, List<BitSet> lists, int from, int to) {
+            this.slots = slots;
+            this.live = live;
+            this.lists = lists;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (to - from <= CHUNK_SLOTS) {
+                return matchRange(slots, live, lists, from, to);
+            }
+            // Граница кратна 64, чтобы куски не делили слова BitSet
+            int mid = ((from + to) >>> 1) & ~63;
+            MatchTask left = new MatchTask(slots, live, lists, from, mid);
+            left.fork();
+            List<Task> right = new MatchTask(slots, live, lists, mid, to).compute();
+            List<Task> result = left.join();
+            result.addAll(right);
+            return result;
+        }
+    }
+
+    private void compact() {
+        List<Task> liveTasks = new ArrayList<>(slotByTask.size());
+        for (Task task : slots) {
+            if (task != null) {
+                liveTasks.add(task);
+            }
+        }
+        slots.clear();
+        slotByTask.clear();
+        postings.clear();
+        live.clear();
+        textIndex.clear();
+        for (BitSet posting : statusPostings) {
+            posting.clear();
+        }
+        for (Task task : liveTasks) {
+            add(task);
+        }
+    }
+}
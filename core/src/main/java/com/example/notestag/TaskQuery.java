@@ -0,0 +1,192 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Составной запрос к задачам: AND/OR/NOT над тегами, статусом, диапазоном даты создания
+ * и словами текста, плюс режим сортировки из TaskSorter как последний шаг.
+ * Запрос – неизменяемое дерево; TaskIndex компилирует его в QueryPlan и выполняет над
+ * постингами тегов и столбцами статуса и даты, а не проверяет каждую задачу.
+ * Текстовая форма – TaskQuery.parse, например
+ * <pre>
+ * [Сфера:Работа] AND ([Важность:Высокая] OR [Срочность:Горит]) NOT status:done created:2026-01-01..
+ * </pre>
+ */
+public final class TaskQuery {
+
+    /** Без сортировки: задачи идут в порядке добавления в индекс. */
+    public static final int UNSORTED = -1;
+
+    static final int ALL = 0;
+    static final int TAG = 1;
+    static final int STATUS = 2;
+    static final int CREATED = 3;
+    static final int TEXT = 4;
+    static final int AND = 5;
+    static final int OR = 6;
+    static final int NOT = 7;
+
+    private static final TaskQuery ALL_TASKS = new TaskQuery(ALL, 0, 0, 0, null, Collections.emptyList(), UNSORTED);
+
+    final int kind;
+    // TAG – id тега; STATUS – маска статусов (бит 1 << статус)
+    final int value;
+    // CREATED – [from, to) в миллисекундах
+    final long from;
+    final long to;
+    final String text;
+    final List<TaskQuery> children;
+    final int sortMode;
+
+    private TaskQuery(int kind, int value, long from, long to, String text, List<TaskQuery> children, int sortMode) {
+        this.kind = kind;
+        this.value = value;
+        this.from = from;
+        this.to = to;
+        this.text = text;
+        this.children = children;
+        this.sortMode = sortMode;
+    }
+
+    /** Все задачи. */
+    public static TaskQuery all() {
+        return ALL_TASKS;
+    }
+
+    /** Задачи с тегом tagId; несуществующий id (например, -1 от TagDictionary.find) – ни одной. */
+    public static TaskQuery tag(int tagId) {
+        return new TaskQuery(TAG, tagId, 0, 0, null, Collections.emptyList(), UNSORTED);
+    }
+
+    /** Задачи с одним из перечисленных статусов (Task.STATUS_*). */
+    public static TaskQuery status(int... statuses) {
+        int mask = 0;
+        for (int status : statuses) {
+            if (status < 0 || status > Task.STATUS_DONE) {
+                throw new IllegalArgumentException("Unknown status: " + status);
+            }
+            mask |= 1 << status;
+        }
+        return new TaskQuery(STATUS, mask, 0, 0, null, Collections.emptyList(), UNSORTED);
+    }
+
+    /** Задачи, созданные в [fromMillis, toMillis); Long.MIN_VALUE/MAX_VALUE – без границы. */
+    public static TaskQuery createdBetween(long fromMillis, long toMillis) {
+        return new TaskQuery(CREATED, 0, fromMillis, toMillis, null, Collections.emptyList(), UNSORTED);
+    }
+
+    /** Каждое слово text – начало какого-нибудь слова в названии или описании. */
+    public static TaskQuery text(String text) {
+        return new TaskQuery(TEXT, 0, 0, 0, text, Collections.emptyList(), UNSORTED);
+    }
+
+    public static TaskQuery and(TaskQuery... queries) {
+        return and(Arrays.asList(queries));
+    }
+
+    public static TaskQuery and(List<TaskQuery> queries) {
+        return combine(AND, queries);
+    }
+
+    public static TaskQuery or(TaskQuery... queries) {
+        return or(Arrays.asList(queries));
+    }
+
+    public static TaskQuery or(List<TaskQuery> queries) {
+        return combine(OR, queries);
+    }
+
+    public static TaskQuery not(TaskQuery query) {
+        return new TaskQuery(NOT, 0, 0, 0, null, Collections.singletonList(query.unsorted()), UNSORTED);
+    }
+
+    /** Все задачи со всеми тегами из tagIds – прежний фильтр экрана. */
+    public static TaskQuery allTags(Iterable<Integer> tagIds) {
+        List<TaskQuery> tags = new ArrayList<>();
+        for (int tagId : tagIds) {
+            tags.add(tag(tagId));
+        }
+        return tags.isEmpty() ? all() : and(tags);
+    }
+
+    /**
+     * Разбирает текстовую форму запроса; IllegalArgumentException с позицией при ошибке.
+     * Синтаксис – в TaskQueryParser.
+     */
+    public static TaskQuery parse(String query) {
+        return new TaskQueryParser(query).parse();
+    }
+
+    /** Тот же запрос с сортировкой результата (TaskSorter.SORT_BY_*). */
+    public TaskQuery orderBy(int sortMode) {
+        return new TaskQuery(kind, value, from, to, text, children, sortMode);
+    }
+
+    public int getSortMode() {
+        return sortMode;
+    }
+
+    private TaskQuery unsorted() {
+        return sortMode == UNSORTED ? this : orderBy(UNSORTED);
+    }
+
+    private static TaskQuery combine(int kind, List<TaskQuery> queries) {
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("Empty " + (kind == AND ? "AND" : "OR"));
+        }
+        if (queries.size() == 1) {
+            return queries.get(0).unsorted();
+        }
+        List<TaskQuery> children = new ArrayList<>(queries.size());
+        for (TaskQuery query : queries) {
+            children.add(query.unsorted());
+        }
+        return new TaskQuery(kind, 0, 0, 0, null, Collections.unmodifiableList(children), UNSORTED);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        append(out);
+        if (sortMode != UNSORTED) {
+            out.append(" ORDER BY ").append(sortMode);
+        }
+        return out.toString();
+    }
+
+    private void append(StringBuilder out) {
+        switch (kind) {
+            case ALL:
+                out.append("*");
+                break;
+            case TAG:
+                out.append("tag#").append(value);
+                break;
+            case STATUS:
+                out.append("status:").append(Integer.toBinaryString(value));
+                break;
+            case CREATED:
+                out.append("created:").append(from).append("..").append(to);
+                break;
+            case TEXT:
+                out.append('"').append(text).append('"');
+                break;
+            case NOT:
+                out.append("NOT ");
+                children.get(0).append(out);
+                break;
+            default:
+                out.append('(');
+                for (int i = 0; i < children.size(); i++) {
+                    if (i > 0) {
+                        out.append(kind == AND ? " AND " : " OR ");
+                    }
+                    children.get(i).append(out);
+                }
+                out.append(')');
+        }
+    }
+}
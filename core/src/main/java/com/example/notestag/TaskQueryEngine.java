@@ -0,0 +1,130 @@
+package com.example.notestag;
+
+import com.example.notestag.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Выполняет фильтрацию и сортировку на фоновом потоке и отдаёт результат вместе со
+ * счётчиками тегов по нему через resultExecutor (в приложении – UI-поток).
+ * Каждый новый запрос делает предыдущие устаревшими: их результат уже не будет доставлен.
+ * Результаты без текста поиска кэшируются в QueryCache, изменения задач правят кэш через
+ * onTasksChanged. Строка поиска разбирается как TaskQuery (обычные слова – поиск по началу
+ * слов), так что в ней работают теги, статус, даты и AND/OR/NOT.
+ * submit/isPending/shutdown вызываются с одного (UI) потока.
+ */
+public class TaskQueryEngine {
+
+    public interface Callback {
+        void onResult(List<Task> tasks, TagFacets facets);
+    }
+
+    // По умолчанию хватает на несколько результатов по 100k задач
+    public static final long DEFAULT_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private final TaskIndex index;
+    private final QueryCache cache;
+    private final Executor resultExecutor;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Номер последнего запроса; читается фоновым потоком, поэтому volatile
+    private volatile int generation;
+    private Future<?> inFlight;
+    private boolean pending;
+
+    public TaskQueryEngine(TaskIndex index, Executor resultExecutor) {
+        this(index, resultExecutor, DEFAULT_CACHE_BYTES);
+    }
+
+    public TaskQueryEngine(TaskIndex index, Executor resultExecutor, long cacheBytes) {
+        this.index = index;
+        this.resultExecutor = resultExecutor;
+        this.cache = new QueryCache(cacheBytes);
+    }
+
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Сообщает кэшу об изменениях, которые уже попали в индекс.
+     */
+    public void onTasksChanged(Collection<Task> added, Collection<Task> removed) {
+        cache.patch(added, removed);
+    }
+
+    public void submit(Collection<Integer> filterTags, String searchText, int sortMode, Callback callback) {
+        final int queryGeneration = ++generation;
+        final List<Integer> filter = new ArrayList<>(filterTags);
+        if (inFlight != null) {
+            // Ещё не начатый запрос просто снимаем, начатый отбросится по номеру
+            inFlight.cancel(false);
+        }
+        pending = true;
+        // Поиск по мере набора даёт одноразовые результаты – их не кэшируем
+        final boolean cacheable = searchText == null || searchText.trim().isEmpty();
+        inFlight = executor.submit(() -> {
+            List<Task> result = cacheable ? cache.get(filter, sortMode) : null;
+            if (result == null) {
+                long cacheVersion = cache.version();
+                long start = Metrics.begin("TaskQueryEngine.query");
+                try {
+                    result = cacheable ? index.query(filter) : index.query(searchQuery(filter, searchText));
+                    if (queryGeneration != generation) {
+                        return;
+                    }
+                    TaskSorter.sort(result, sortMode);
+                } finally {
+                    Metrics.end(Metrics.QUERY_TIME, start);
+                }
+                if (cacheable) {
+                    cache.put(filter, sortMode, result, cacheVersion);
+                }
+            }
+            Metrics.QUERY_RESULT_SIZE.record(result.size());
+            TagFacets facets = TagFacets.of(result);
+            if (queryGeneration != generation) {
+                return;
+            }
+            List<Task> tasks = result;
+            resultExecutor.execute(() -> {
+                if (queryGeneration == generation) {
+                    pending = false;
+                    callback.onResult(tasks, facets);
+                }
+            });
+        });
+    }
+
+    /**
+     * Теги фильтра AND разобранная строка поиска; если строка не разбирается (например,
+     * ещё набирается "[Сфера:"), ищем по её словам как раньше.
+     */
+    static TaskQuery searchQuery(Collection<Integer> filterTags, String searchText) {
+        TaskQuery search;
+        try {
+            search = TaskQuery.parse(searchText);
+        } catch (IllegalArgumentException e) {
+            search = TaskQuery.text(searchText);
+        }
+        return TaskQuery.and(TaskQuery.allTags(filterTags), search);
+    }
+
+    /**
+     * Есть ли запрос, результат которого ещё не доставлен.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void shutdown() {
+        generation++;
+        executor.shutdownNow();
+    }
+}
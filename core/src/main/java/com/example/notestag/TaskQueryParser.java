@@ -0,0 +1,220 @@
+package com.example.notestag;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбор текстовой формы TaskQuery рекурсивным спуском:
+ * <pre>
+ * запрос  := и ("OR" и)*
+ * и       := унарный (["AND"] унарный)*     – соседние условия без оператора тоже AND
+ * унарный := "NOT" унарный | "(" запрос ")" | условие
+ * условие := "[" группа ":" тег "]"
+ *          | "status:" статус ("," статус)*  – not_started, in_progress, done
+ *          | "created:" [дата] ".." [дата]   – дата yyyy-MM-dd, обе границы включительно
+ *          | "created:" дата                 – один день
+ *          | "\"" слова "\"" | слово           – поиск по началу слов, как в строке поиска
+ * </pre>
+ * Операторы – только заглавными, чтобы обычные слова "or" и "not" оставались поиском.
+ * Неизвестный тег не заводится в словаре, а просто ничего не находит.
+ */
+class TaskQueryParser {
+
+    private final String input;
+    private int position;
+
+    TaskQueryParser(String input) {
+        this.input = input;
+    }
+
+    TaskQuery parse() {
+        skipSpaces();
+        if (position == input.length()) {
+            return TaskQuery.all();
+        }
+        TaskQuery query = parseOr();
+        skipSpaces();
+        if (position < input.length()) {
+            throw error("Unexpected '" + input.charAt(position) + "'");
+        }
+        return query;
+    }
+
+    private TaskQuery parseOr() {
+        List<TaskQuery> alternatives = new ArrayList<>();
+        alternatives.add(parseAnd());
+        while (acceptKeyword("OR")) {
+            alternatives.add(parseAnd());
+        }
+        return TaskQuery.or(alternatives);
+    }
+
+    private TaskQuery parseAnd() {
+        List<TaskQuery> conditions = new ArrayList<>();
+        conditions.add(parseUnary());
+        while (true) {
+            skipSpaces();
+            if (position == input.length() || input.charAt(position) == ')' || peekKeyword("OR")) {
+                break;
+            }
+            acceptKeyword("AND");
+            conditions.add(parseUnary());
+        }
+        return TaskQuery.and(conditions);
+    }
+
+    private TaskQuery parseUnary() {
+        skipSpaces();
+        if (acceptKeyword("NOT")) {
+            return TaskQuery.not(parseUnary());
+        }
+        if (position == input.length()) {
+            throw error("Condition expected");
+        }
+        char c = input.charAt(position);
+        if (c == '(') {
+            position++;
+            TaskQuery query = parseOr();
+            skipSpaces();
+            expect(')');
+            return query;
+        }
+        if (c == '[') {
+            return parseTag();
+        }
+        if (c == '"') {
+            position++;
+            int end = input.indexOf('"', position);
+            if (end < 0) {
+                throw error("Unterminated quote");
+            }
+            String text = input.substring(position, end);
+            position = end + 1;
+            return TaskQuery.text(text);
+        }
+        int start = position;
+        String word = readWord();
+        if (word.isEmpty()) {
+            throw error("Unexpected '" + c + "'");
+        }
+        if (word.startsWith("status:")) {
+            return parseStatus(word.substring("status:".length()), start);
+        }
+        if (word.startsWith("created:")) {
+            return parseCreated(word.substring("created:".length()), start);
+        }
+        return TaskQuery.text(word);
+    }
+
+    private TaskQuery parseTag() {
+        int start = position;
+        int end = input.indexOf(']', position);
+        if (end < 0) {
+            throw error("Unterminated tag");
+        }
+        String body = input.substring(position + 1, end);
+        int colon = body.indexOf(':');
+        if (colon < 0) {
+            position = start;
+            throw error("Tag must be [group:tag]");
+        }
+        position = end + 1;
+        return TaskQuery.tag(TagDictionary.getInstance().find(body.substring(0, colon).trim(),
+                body.substring(colon + 1).trim()));
+    }
+
+    private TaskQuery parseStatus(String list, int start) {
+        String[] names = list.split(",");
+        int[] statuses = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i]) {
+                case "not_started":
+                    statuses[i] = Task.STATUS_NOT_STARTED;
+                    break;
+                case "in_progress":
+                    statuses[i] = Task.STATUS_IN_PROGRESS;
+                    break;
+                case "done":
+                    statuses[i] = Task.STATUS_DONE;
+                    break;
+                default:
+                    position = start;
+                    throw error("Unknown status '" + names[i] + "'");
+            }
+        }
+        return TaskQuery.status(statuses);
+    }
+
+    private TaskQuery parseCreated(String range, int start) {
+        int dots = range.indexOf("..");
+        String fromText = dots < 0 ? range : range.substring(0, dots);
+        String toText = dots < 0 ? range : range.substring(dots + 2);
+        long from = fromText.isEmpty() ? Long.MIN_VALUE : dayStart(fromText, start, 0);
+        // Верхняя граница включительно – до начала следующего дня
+        long to = toText.isEmpty() ? Long.MAX_VALUE : dayStart(toText, start, 1);
+        return TaskQuery.createdBetween(from, to);
+    }
+
+    private long dayStart(String date, int start, int plusDays) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+        format.setLenient(false);
+        Calendar calendar = Calendar.getInstance();
+        try {
+            calendar.setTime(format.parse(date));
+        } catch (ParseException e) {
+            position = start;
+            throw error("Bad date '" + date + "'");
+        }
+        calendar.add(Calendar.DAY_OF_MONTH, plusDays);
+        return calendar.getTimeInMillis();
+    }
+
+    // Слово – до пробела или скобки
+    private String readWord() {
+        int start = position;
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (Character.isWhitespace(c) || c == '(' || c == ')' || c == '[' || c == '"') {
+                break;
+            }
+            position++;
+        }
+        return input.substring(start, position);
+    }
+
+    private boolean peekKeyword(String keyword) {
+        int end = position + keyword.length();
+        return input.startsWith(keyword, position)
+                && (end == input.length() || Character.isWhitespace(input.charAt(end)) || input.charAt(end) == '(');
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipSpaces();
+        if (!peekKeyword(keyword)) {
+            return false;
+        }
+        position += keyword.length();
+        return true;
+    }
+
+    private void expect(char c) {
+        if (position == input.length() || input.charAt(position) != c) {
+            throw error("'" + c + "' expected");
+        }
+        position++;
+    }
+
+    private void skipSpaces() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.notestag;
+
+import com.example.notestag.store.TaskStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Все задачи по id плюс их индекс и хранилище. Изменения идут пачками: каждая пачка
+ * одним шагом обновляет индекс и журнал, а слушатель узнаёт обо всех изменениях
+ * за кадр одним вызовом – так пачка из тысяч операций даёт один перезапрос и один diff.
+ * Используется только с UI-потока.
+ */
+public class TaskRepository {
+
+    public interface Listener {
+        void onTasksChanged(Changes changes);
+    }
+
+    /** Что поменялось с прошлого уведомления. Задача может попасть и в added, и в removed. */
+    public static final class Changes {
+        public final List<Task> added;
+        public final List<Task> removed;
+        public final List<Task> updated;
+
+        Changes(List<Task> added, List<Task> removed, List<Task> updated) {
+            this.added = added;
+            this.removed = removed;
+            this.updated = updated;
+        }
+    }
+
+    private final Map<Long, Task> tasks = new LinkedHashMap<>();
+    private final TaskIndex index;
+    private final TaskStore store;
+    private final Executor frameExecutor;
+    private Listener listener;
+
+    private List<Task> pendingAdded = new ArrayList<>();
+    private List<Task> pendingRemoved = new ArrayList<>();
+    private List<Task> pendingUpdated = new ArrayList<>();
+    private boolean dispatchScheduled;
+
+    /**
+     * @param store         куда писать изменения; null – ничего не сохранять
+     * @param frameExecutor выполняет уведомление один раз в начале следующего кадра
+     */
+    public TaskRepository(TaskIndex index, TaskStore store, Executor frameExecutor) {
+        this.index = index;
+        this.store = store;
+        this.frameExecutor = frameExecutor;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public TaskIndex getIndex() {
+        return index;
+    }
+
+    public Task get(long id) {
+        return tasks.get(id);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Задачи в порядке добавления.
+     */
+    public List<Task> getAll() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * Начальная загрузка из хранилища: без записи в журнал и без уведомления.
+     */
+    public void load(Collection<Task> loaded) {
+        for (Task task : loaded) {
+            tasks.put(task.getId(), task);
+        }
+        index.addAll(loaded);
+    }
+
+    public void add(Task task) {
+        addAll(Collections.singletonList(task));
+    }
+
+    /**
+     * @return сколько задач добавлено: задачи с уже занятым id пропускаются
+     */
+    public int addAll(Collection<Task> batch) {
+        List<Task> added = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (tasks.putIfAbsent(task.getId(), task) == null) {
+                added.add(task);
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+        index.addAll(added);
+        if (store != null) {
+            for (Task task : added) {
+                store.appendCreate(task);
+            }
+        }
+        pendingAdded.addAll(added);
+        scheduleDispatch();
+        return added.size();
+    }
+
+    public void remove(Task task) {
+        removeAll(Collections.singletonList(task));
+    }
+
+    public void removeAll(Collection<Task> batch) {
+        List<Task> removed = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            // remove(key, value): чужой объект с тем же id не удаляет нашу задачу
+            if (tasks.remove(task.getId(), task)) {
+                removed.add(task);
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+        index.removeAll(removed);
+        if (store != null) {
+            for (Task task : removed) {
+                store.appendDelete(task);
+            }
+        }
+        pendingRemoved.addAll(removed);
+        scheduleDispatch();
+    }
+
+    public void setStatus(Task task, int status) {
+        setStatus(Collections.singletonList(task), status);
+    }
+
+    /**
+     * Меняет статус у всех задач пачки, например "завершить все задачи с тегом X".
+     */
+    public void setStatus(Collection<Task> batch, int status) {
+        List<Task> updated = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (tasks.get(task.getId()) == task) {
+                task.setStatus(status);
+                updated.add(task);
+            }
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+        index.updateStatus(updated);
+        if (store != null) {
+            for (Task task : updated) {
+                store.appendStatus(task);
+            }
+        }
+        pendingUpdated.addAll(updated);
+        scheduleDispatch();
+    }
+
+    private void scheduleDispatch() {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            frameExecutor.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        dispatchScheduled = false;
+        Changes changes = new Changes(pendingAdded, pendingRemoved, pendingUpdated);
+        pendingAdded = new ArrayList<>();
+        pendingRemoved = new ArrayList<>();
+        pendingUpdated = new ArrayList<>();
+        if (listener != null) {
+            listener.onTasksChanged(changes);
+        }
+    }
+}
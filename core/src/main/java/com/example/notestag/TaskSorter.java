@@ -0,0 +1,244 @@
+package com.example.notestag;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Сортировка задач по режимам из диалога сортировки.
+ * Ключи важности, срочности и сферы уже посчитаны в Task, поэтому для них
+ * используется устойчивая сортировка подсчётом за O(n), а не сравнения.
+ * Начиная с PARALLEL_THRESHOLD задач сортировка идёт параллельно в общем ForkJoinPool
+ * и даёт ровно тот же порядок, что и последовательная (обе устойчивые).
+ */
+public final class TaskSorter {
+
+    public static final int SORT_BY_DATE = 0;
+    public static final int SORT_BY_IMPORTANCE = 1;
+    public static final int SORT_BY_URGENCY = 2;
+    public static final int SORT_BY_TITLE = 3;
+    public static final int SORT_BY_SPHERE = 4;
+
+    static final int PARALLEL_THRESHOLD = 50_000;
+    // Кусок сортировки подсчётом не меньше этого, чтобы не дробить мелко
+    private static final int MIN_CHUNK = 16 * 1024;
+
+    private TaskSorter() {
+    }
+
+    public static void sort(List<Task> tasks, int sortMode) {
+        sort(tasks, sortMode, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * То же со своим порогом параллельности – для сравнения путей в бенчмарках
+     * (Integer.MAX_VALUE – всегда последовательно).
+     */
+    public static void sort(List<Task> tasks, int sortMode, int parallelThreshold) {
+        switch (sortMode) {
+            case SORT_BY_IMPORTANCE:
+                countingSort(tasks, sortMode, TagDictionary.importanceLevelCount(), true, // по убыванию
+                        parallelThreshold);
+                break;
+            case SORT_BY_URGENCY:
+                countingSort(tasks, sortMode, TagDictionary.urgencyLevelCount(), true, // по убыванию
+                        parallelThreshold);
+                break;
+            case SORT_BY_SPHERE:
+                countingSort(tasks, sortMode, TagDictionary.sphereCount(), false, parallelThreshold);
+                break;
+            default:
+                if (tasks.size() >= parallelThreshold) {
+                    Task[] array = tasks.toArray(new Task[0]);
+                    Arrays.parallelSort(array, comparator(sortMode));
+                    copyBack(array, tasks);
+                } else {
+                    tasks.sort(comparator(sortMode));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Устойчивая сортировка по рангу тегов любой группы (см. TagDictionary.getRank): задача
+     * встаёт по своему младшему тегу группы, задачи без тегов группы – в конце.
+     * Ключ считается один раз на задачу, дальше сортируются примитивы.
+     */
+    public static void sortByGroup(List<Task> tasks, int groupOrdinal) {
+        int size = tasks.size();
+        long[] keyed = new long[size];
+        for (int i = 0; i < size; i++) {
+            // Номер в списке в младших битах делает сортировку устойчивой
+            keyed[i] = ((long) groupRank(tasks.get(i), groupOrdinal) << 32) | i;
+        }
+        Arrays.sort(keyed);
+        Task[] sorted = new Task[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = tasks.get((int) keyed[i]);
+        }
+        copyBack(sorted, tasks);
+    }
+
+    /**
+     * Младший ранг тегов задачи в группе или Integer.MAX_VALUE, если тегов группы у неё нет.
+     */
+    public static int groupRank(Task task, int groupOrdinal) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int best = Integer.MAX_VALUE;
+        for (int tagId : task.getTagIds()) {
+            if (dictionary.getGroupOrdinal(tagId) == groupOrdinal) {
+                best = Math.min(best, dictionary.getRank(tagId));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Компаратор с тем же порядком, что даёт sort(); сравнивает только примитивы и названия.
+     */
+    public static Comparator<Task> comparator(int sortMode) {
+        switch (sortMode) {
+            case SORT_BY_IMPORTANCE:
+                return (t1, t2) -> Integer.compare(t2.getImportanceLevel(), t1.getImportanceLevel());
+            case SORT_BY_URGENCY:
+                return (t1, t2) -> Integer.compare(t2.getUrgencyLevel(), t1.getUrgencyLevel());
+            case SORT_BY_TITLE:
+                return (t1, t2) -> t1.getTitle().compareToIgnoreCase(t2.getTitle());
+            case SORT_BY_SPHERE:
+                return (t1, t2) -> Integer.compare(t1.getSphereRank(), t2.getSphereRank());
+            case SORT_BY_DATE:
+            default:
+                return (t1, t2) -> Long.compare(t2.getCreatedAt(), t1.getCreatedAt()); // новые сверху
+        }
+    }
+
+    /**
+     * Позиция, куда вставить новую задачу в уже отсортированный список (после равных ей).
+     */
+    public static int insertionPoint(List<Task> sorted, Task task, int sortMode) {
+        Comparator<Task> comparator = comparator(sortMode);
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(sorted.get(mid), task) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Позиция задачи в отсортированном списке или -1.
+     * Равные по ключу задачи идут в порядке добавления, то есть по возрастанию id,
+     * поэтому ищем бинарным поиском по (ключ, id) и проверяем найденное.
+     */
+    public static int indexOf(List<Task> sorted, Task task, int sortMode) {
+        Comparator<Task> comparator = comparator(sortMode).thenComparingLong(Task::getId);
+        int low = 0;
+        int high = sorted.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparator.compare(sorted.get(mid), task);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                if (sorted.get(mid) == task) {
+                    return mid;
+                }
+                break;
+            }
+        }
+        // Порядок добавления не совпал с порядком id – ищем линейно
+        return sorted.indexOf(task);
+    }
+
+    private static int key(Task task, int sortMode) {
+        switch (sortMode) {
+            case SORT_BY_IMPORTANCE:
+                return task.getImportanceLevel();
+            case SORT_BY_URGENCY:
+                return task.getUrgencyLevel();
+            default:
+                return task.getSphereRank();
+        }
+    }
+
+    /**
+     * Устойчивая сортировка подсчётом по ключу из диапазона [NO_LEVEL, levels).
+     * Список режется на куски: для каждого считаются свои счётчики корзин, затем
+     * смещения раскладываются "корзина, потом кусок", и куски раскидываются независимо.
+     * С одним куском это обычная последовательная сортировка подсчётом.
+     */
+    private static void countingSort(List<Task> tasks, int sortMode, int levels, boolean descending,
+                                     int parallelThreshold) {
+        int size = tasks.size();
+        if (size < 2) {
+            return;
+        }
+        final Task[] input = tasks.toArray(new Task[0]);
+        // Корзина 0 – задачи без ключа (NO_LEVEL)
+        final int buckets = levels + 1;
+        final int chunks = size < parallelThreshold ? 1
+                : Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / MIN_CHUNK));
+        final int chunkSize = (size + chunks - 1) / chunks;
+        final byte[] keys = new byte[size];
+        final int[][] starts = new int[chunks][buckets];
+
+        forEachChunk(chunks, chunk -> {
+            int[] counts = starts[chunk];
+            int end = Math.min(size, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < end; i++) {
+                int bucket = key(input[i], sortMode) + 1;
+                if (descending) {
+                    bucket = buckets - 1 - bucket;
+                }
+                keys[i] = (byte) bucket;
+                counts[bucket]++;
+            }
+        });
+
+        int offset = 0;
+        for (int b = 0; b < buckets; b++) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = starts[chunk][b];
+                starts[chunk][b] = offset;
+                offset += count;
+            }
+        }
+
+        final Task[] sorted = new Task[size];
+        forEachChunk(chunks, chunk -> {
+            int[] positions = starts[chunk];
+            int end = Math.min(size, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < end; i++) {
+                sorted[positions[keys[i]]++] = input[i];
+            }
+        });
+        copyBack(sorted, tasks);
+    }
+
+    private interface ChunkAction {
+        void run(int chunk);
+    }
+
+    private static void forEachChunk(int chunks, ChunkAction action) {
+        if (chunks == 1) {
+            action.run(0);
+        } else {
+            IntStream.range(0, chunks).parallel().forEach(action::run);
+        }
+    }
+
+    private static void copyBack(Task[] sorted, List<Task> tasks) {
+        for (int i = 0; i < sorted.length; i++) {
+            tasks.set(i, sorted[i]);
+        }
+    }
+}
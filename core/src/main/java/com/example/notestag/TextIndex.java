@@ -0,0 +1,129 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Полнотекстовый индекс по названию и описанию задач: слово -> отсортированный массив слотов
+ * (тех же, что в TaskIndex). Словарь слов отсортирован, поэтому все слова с данным префиксом
+ * лежат подряд и ищутся одним диапазоном – так работает поиск по мере набора.
+ */
+class TextIndex {
+
+    private final TreeMap<String, Posting> terms = new TreeMap<>();
+
+    /** Слоты одного слова по возрастанию; слоты выдаются по порядку, так что добавление – в конец. */
+    private static final class Posting {
+        int[] slots = new int[2];
+        int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    void add(int slot, Task task) {
+        for (String term : terms(task)) {
+            Posting posting = terms.get(term);
+            if (posting == null) {
+                posting = new Posting();
+                terms.put(term, posting);
+            }
+            posting.add(slot);
+        }
+    }
+
+    void remove(int slot, Task task) {
+        for (String term : terms(task)) {
+            Posting posting = terms.get(term);
+            if (posting != null) {
+                posting.remove(slot);
+                if (posting.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        terms.clear();
+    }
+
+    /**
+     * Слоты задач, где каждое слово запроса является префиксом какого-нибудь слова задачи.
+     * null – в запросе нет ни одного слова (текстового фильтра нет).
+     */
+    BitSet match(String query) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return null;
+        }
+        BitSet result = null;
+        for (String prefix : queryTerms) {
+            BitSet matches = new BitSet();
+            for (Map.Entry<String, Posting> entry : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+                Posting posting = entry.getValue();
+                for (int i = 0; i < posting.size; i++) {
+                    matches.set(posting.slots[i]);
+                }
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> terms(Task task) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(task.getTitle()));
+        terms.addAll(tokenize(task.getDescription()));
+        return terms;
+    }
+
+    /**
+     * Разбивает текст на слова из букв и цифр, в нижнем регистре, "ё" приводится к "е".
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+}
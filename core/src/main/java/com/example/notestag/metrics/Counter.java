@@ -0,0 +1,44 @@
+package com.example.notestag.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчик событий; пока метрики выключены, increment – одна проверка флага.
+ */
+public final class Counter {
+
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        if (Metrics.enabled) {
+            value.incrementAndGet();
+        }
+    }
+
+    public void add(long delta) {
+        if (Metrics.enabled) {
+            value.addAndGet(delta);
+        }
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    void reset() {
+        value.set(0);
+    }
+
+    void dump(StringBuilder out) {
+        out.append(name).append(": ").append(value.get()).append('\n');
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.notestag.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма в духе HdrHistogram: корзины логарифмические по степени двойки, каждая
+ * делится на SUB_BUCKETS равных частей, так что перцентили точны до ~6% в любом диапазоне.
+ * Все корзины выделены заранее, record не аллоцирует и не блокирует.
+ */
+public final class Histogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Значения меньше SUB_BUCKETS лежат по одному в корзине, дальше – по 16 на степень двойки
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    // Значения в наносекундах показываем в микросекундах
+    private final boolean nanos;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, boolean nanos) {
+        this.name = name;
+        this.nanos = nanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long value) {
+        if (!Metrics.enabled) {
+            return;
+        }
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long previous;
+        while (value > (previous = max.get()) && !max.compareAndSet(previous, value)) {
+            // повторяем, пока не запишем свой максимум
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Верхняя граница корзины, в которую попадает перцентиль (0–100).
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    void dump(StringBuilder out) {
+        long total = count.get();
+        out.append(name).append(": count=").append(total);
+        if (total > 0) {
+            out.append(" mean=").append(format(sum.get() / total))
+                    .append(" p50=").append(format(percentile(50)))
+                    .append(" p90=").append(format(percentile(90)))
+                    .append(" p99=").append(format(percentile(99)))
+                    .append(" max=").append(format(max.get()));
+            if (nanos) {
+                out.append(" us");
+            }
+        }
+        out.append('\n');
+    }
+
+    private String format(long value) {
+        if (!nanos) {
+            return Long.toString(value);
+        }
+        return String.format(Locale.ROOT, "%.1f", value / 1000.0);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Старший бит плюс SUB_BITS следующих за ним определяют корзину
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        int sub = (int) (value >>> (exponent - 1)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS;
+        long sub = bucket % SUB_BUCKETS;
+        long upper = ((SUB_BUCKETS + sub + 1) << (exponent - 1)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.notestag.metrics;
+
+/**
+ * Метрики горячих путей: все счётчики и гистограммы заведены заранее статическими полями,
+ * так что запись не ищет их по имени и не аллоцирует. Пока enabled == false, каждая
+ * точка замера стоит одной проверки флага. Секции трассировки (android.os.Trace
+ * в приложении) подключаются через setTracer.
+ * <pre>
+ * long start = Metrics.begin("query");
+ * ...
+ * Metrics.end(Metrics.QUERY_TIME, start);
+ * </pre>
+ */
+public final class Metrics {
+
+    /** Секции трассировки; begin и end вызываются на одном потоке. */
+    public interface Tracer {
+        void begin(String section);
+
+        void end();
+    }
+
+    // Не volatile: включается один раз при старте, а пропущенная пара замеров не страшна
+    static boolean enabled;
+    private static Tracer tracer;
+
+    public static final Histogram QUERY_TIME = new Histogram("query.time", true);
+    public static final Histogram QUERY_RESULT_SIZE = new Histogram("query.resultSize", false);
+    public static final Counter QUERY_CACHE_HITS = new Counter("query.cache.hits");
+    public static final Counter QUERY_CACHE_MISSES = new Counter("query.cache.misses");
+    public static final Histogram BIND_TIME = new Histogram("adapter.bind.time", true);
+    public static final Counter CHIPS_CREATED = new Counter("adapter.chipsCreated");
+    public static final Histogram DIALOG_BUILD_TIME = new Histogram("dialog.build.time", true);
+    public static final Histogram TASK_CREATE_TIME = new Histogram("task.create.time", true);
+    // От старта процесса до первой строки из снимка и до полностью загруженного списка
+    public static final Histogram STARTUP_FIRST_ROW = new Histogram("startup.firstRow", true);
+    public static final Histogram STARTUP_INTERACTIVE = new Histogram("startup.interactive", true);
+    public static final Histogram SUGGEST_TIME = new Histogram("suggest.time", true);
+
+    private static final Histogram[] HISTOGRAMS = {
+            QUERY_TIME, QUERY_RESULT_SIZE, BIND_TIME, DIALOG_BUILD_TIME, TASK_CREATE_TIME,
+            STARTUP_FIRST_ROW, STARTUP_INTERACTIVE, SUGGEST_TIME
+    };
+    private static final Counter[] COUNTERS = {
+            QUERY_CACHE_HITS, QUERY_CACHE_MISSES, CHIPS_CREATED
+    };
+
+    private Metrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setTracer(Tracer tracer) {
+        Metrics.tracer = tracer;
+    }
+
+    /**
+     * Открывает секцию трассировки и возвращает время начала; 0 – метрики выключены.
+     */
+    public static long begin(String section) {
+        if (!enabled) {
+            return 0;
+        }
+        Tracer current = tracer;
+        if (current != null) {
+            current.begin(section);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Закрывает секцию, открытую begin, и пишет её длительность в гистограмму.
+     */
+    public static void end(Histogram histogram, long start) {
+        if (start == 0) {
+            return;
+        }
+        histogram.record(System.nanoTime() - start);
+        Tracer current = tracer;
+        if (current != null) {
+            current.end();
+        }
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (Counter counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Текстовый отчёт по всем метрикам, по строке на каждую.
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.dump(out);
+        }
+        for (Counter counter : COUNTERS) {
+            counter.dump(out);
+        }
+        long hits = QUERY_CACHE_HITS.get();
+        long lookups = hits + QUERY_CACHE_MISSES.get();
+        if (lookups > 0) {
+            out.append("query.cache.hitRate: ").append(hits * 100 / lookups).append("%\n");
+        }
+        return out.toString();
+    }
+}
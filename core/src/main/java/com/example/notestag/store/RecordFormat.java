@@ -0,0 +1,75 @@
+package com.example.notestag.store;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Формат записи в журнале и снимке: [тип:1][длина:4][данные][crc32:4].
+ * CRC считается по типу и данным, так что оборванный при сбое хвост журнала легко отбросить.
+ */
+final class RecordFormat {
+
+    static final byte CREATE = 1;
+    static final byte DELETE = 2;
+    static final byte STATUS = 3;
+
+    // Тип, длина и crc
+    static final int OVERHEAD = 1 + 4 + 4;
+    private static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+
+    private RecordFormat() {
+    }
+
+    static final class Record {
+        final byte type;
+        final byte[] payload;
+
+        Record(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        int size() {
+            return OVERHEAD + payload.length;
+        }
+    }
+
+    static void write(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(checksum(type, payload));
+    }
+
+    /**
+     * Читает следующую запись. Возвращает null в конце файла и на повреждённой записи.
+     */
+    static Record read(DataInputStream in) throws IOException {
+        try {
+            byte type = in.readByte();
+            int length = in.readInt();
+            if (length < 0 || length > MAX_PAYLOAD) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            int crc = in.readInt();
+            if (crc != checksum(type, payload)) {
+                return null;
+            }
+            return new Record(type, payload);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
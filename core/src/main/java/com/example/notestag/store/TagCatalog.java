@@ -0,0 +1,99 @@
+package com.example.notestag.store;
+
+import com.example.notestag.TagDictionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Каталог тегов на диске: все группы и теги словаря в порядке их id.
+ * <pre>
+ * ["NTAG"][версия:4][число тегов:4]{[id:4][группа:UTF][тег:UTF][ранг в группе:4]}
+ * </pre>
+ * load() при старте заводит теги в TagDictionary в том же порядке, так что свои группы
+ * и теги, их ранги и номера групп переживают перезапуск. Вызывается один раз на процесс,
+ * до любого другого intern (см. NotesTagApp), иначе id разъедутся с записанными.
+ * save() переписывает файл целиком через временный и атомарную подмену, если с прошлого
+ * сохранения в словаре появились теги (теги только добавляются, поэтому хватает размера).
+ */
+public class TagCatalog {
+
+    private static final String CATALOG_FILE = "tags.catalog";
+    private static final int CATALOG_MAGIC = 0x4E544147; // "NTAG"
+    private static final int CATALOG_VERSION = 1;
+
+    private final File directory;
+    private final File path;
+    private int savedSize = -1;
+
+    public TagCatalog(File directory) {
+        this.directory = directory;
+        this.path = new File(directory, CATALOG_FILE);
+    }
+
+    public synchronized void load() throws IOException {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        if (!path.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != CATALOG_MAGIC || in.readInt() != CATALOG_VERSION) {
+                throw new IOException("Unknown catalog format: " + path);
+            }
+            int count = in.readInt();
+            int mismatch = -1;
+            for (int i = 0; i < count; i++) {
+                int storedId = in.readInt();
+                String group = in.readUTF();
+                String tag = in.readUTF();
+                int storedRank = in.readInt();
+                // Ранг и id восстанавливаются тем же порядком добавления – проверяем, что так и вышло
+                int id = dictionary.intern(group, tag);
+                if (mismatch < 0 && (id != storedId || dictionary.getRank(id) != storedRank)) {
+                    mismatch = storedId;
+                }
+            }
+            if (mismatch >= 0) {
+                // Все теги уже в словаре; следующий save() перепишет каталог в нынешнем порядке
+                throw new IOException("Tag catalog does not match the dictionary from id " + mismatch);
+            }
+        }
+        savedSize = dictionary.size();
+    }
+
+    public synchronized void save() throws IOException {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int size = dictionary.size();
+        if (size == savedSize) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File tmp = new File(directory, CATALOG_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(CATALOG_MAGIC);
+            out.writeInt(CATALOG_VERSION);
+            out.writeInt(size);
+            for (int id = 0; id < size; id++) {
+                out.writeInt(id);
+                out.writeUTF(dictionary.getGroup(id));
+                out.writeUTF(dictionary.getName(id));
+                out.writeInt(dictionary.getRank(id));
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!tmp.renameTo(path)) {
+            throw new IOException("Cannot replace " + path);
+        }
+        savedSize = size;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.notestag.store;
+
+import com.example.notestag.Task;
+import com.example.notestag.TaskCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилище задач на диске: журнал операций (создание, удаление, смена статуса)
+ * и периодический снимок всех живых задач, после которого журнал обнуляется.
+ * Запись идёт на фоновом потоке, fsync делается пачкой не чаще раза в SYNC_DELAY_MS.
+ * При старте load() читает снимок и доигрывает журнал поверх него.
+ * Если запись не удалась, слушатель узнаёт об этом сразу, а задачи в памяти хранилища
+ * продолжают обновляться: следующая запись (или close) пробует переписать всё снимком.
+ */
+public class TaskStore implements Closeable {
+
+    private static final String LOG_FILE = "tasks.log";
+    private static final String SNAPSHOT_FILE = "tasks.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x4E544153; // "NTAS"
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private static final long SYNC_DELAY_MS = 200;
+    // Снимок пишем, когда журнал стал длиннее числа живых задач (но не раньше этого порога)
+    private static final int MIN_RECORDS_FOR_COMPACTION = 1000;
+
+    private final File directory;
+    private final File logPath;
+    private final File snapshotPath;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    // Всё ниже меняется только на потоке executor (и в load() до первой записи)
+    private final Map<Long, Entry> live = new LinkedHashMap<>();
+    private FileOutputStream logFile;
+    private DataOutputStream logOut;
+    private int logRecords;
+    private boolean syncScheduled;
+    private volatile IOException failure;
+    private volatile FailureListener failureListener;
+
+    public interface FailureListener {
+        /** Первая неудачная запись после успешных; вызывается на потоке хранилища. */
+        void onWriteFailed(IOException e);
+    }
+
+    private static final class Entry {
+        final Task task;
+        int status;
+
+        Entry(Task task, int status) {
+            this.task = task;
+            this.status = status;
+        }
+    }
+
+    public TaskStore(File directory) {
+        this.directory = directory;
+        this.logPath = new File(directory, LOG_FILE);
+        this.snapshotPath = new File(directory, SNAPSHOT_FILE);
+    }
+
+    public void setFailureListener(FailureListener listener) {
+        failureListener = listener;
+    }
+
+    /**
+     * Читает снимок и журнал и возвращает задачи в порядке создания.
+     * Вызывается один раз, до любых append*.
+     */
+    public List<Task> load() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        live.clear();
+        if (snapshotPath.exists()) {
+            readSnapshot();
+        }
+        long validLength = logPath.exists() ? replayLog() : 0;
+        // Отрезаем оборванную последнюю запись, чтобы дописывать после целых
+        if (logPath.exists() && logPath.length() != validLength) {
+            try (RandomAccessFile file = new RandomAccessFile(logPath, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+        openLog(true);
+
+        List<Task> tasks = new ArrayList<>(live.size());
+        for (Entry entry : live.values()) {
+            entry.task.setStatus(entry.status);
+            tasks.add(entry.task);
+        }
+        return tasks;
+    }
+
+    public void appendCreate(Task task) {
+        final int status = task.getStatus();
+        submit(() -> {
+            live.put(task.getId(), new Entry(task, status));
+            write(RecordFormat.CREATE, TaskCodec.encode(task, status));
+        });
+    }
+
+    public void appendDelete(Task task) {
+        final long id = task.getId();
+        submit(() -> {
+            if (live.remove(id) != null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+                new DataOutputStream(bytes).writeLong(id);
+                write(RecordFormat.DELETE, bytes.toByteArray());
+            }
+        });
+    }
+
+    public void appendStatus(Task task) {
+        final long id = task.getId();
+        final int status = task.getStatus();
+        submit(() -> {
+            Entry entry = live.get(id);
+            if (entry != null) {
+                entry.status = status;
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeLong(id);
+                out.writeByte(status);
+                write(RecordFormat.STATUS, bytes.toByteArray());
+            }
+        });
+    }
+
+    /**
+     * Дописывает всё из очереди, делает fsync и закрывает файлы. Ждёт до 5 с, поэтому
+     * вызывается не с UI-потока.
+     *
+     * @throws IOException если записать всё так и не удалось
+     */
+    @Override
+    public void close() throws IOException {
+        submit(() -> {
+            if (logOut != null) {
+                if (failure != null) {
+                    recover();
+                }
+                sync();
+                logOut.close();
+                logOut = null;
+            }
+        });
+        executor.shutdown();
+        boolean finished = false;
+        try {
+            finished = executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (!finished) {
+            throw new IOException("Store did not finish writing in 5 s");
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    private void submit(IoTask task) {
+        executor.execute(() -> run(task));
+    }
+
+    private void run(IoTask task) {
+        try {
+            task.run();
+        } catch (IOException e) {
+            boolean first = failure == null;
+            failure = e;
+            FailureListener listener = failureListener;
+            if (first && listener != null) {
+                listener.onWriteFailed(e);
+            }
+        }
+    }
+
+    private void write(byte type, byte[] payload) throws IOException {
+        if (logOut == null) {
+            throw new IOException("Store is closed");
+        }
+        if (failure != null) {
+            // live уже включает эту запись – снимок заменит и её, и оборванный журнал
+            recover();
+            return;
+        }
+        RecordFormat.write(logOut, type, payload);
+        logRecords++;
+        if (logRecords >= Math.max(MIN_RECORDS_FOR_COMPACTION, live.size())) {
+            compact();
+        } else if (!syncScheduled) {
+            syncScheduled = true;
+            executor.schedule(() -> run(this::sync), SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sync() throws IOException {
+        syncScheduled = false;
+        if (logOut == null) {
+            return;
+        }
+        logOut.flush();
+        logFile.getFD().sync();
+    }
+
+    private void recover() throws IOException {
+        compact();
+        failure = null;
+    }
+
+    /**
+     * Пишет снимок живых задач во временный файл, атомарно подменяет старый и обнуляет журнал.
+     * Если упасть между подменой и обнулением, журнал доиграется поверх снимка без вреда:
+     * повторное создание уже существующей задачи игнорируется.
+     */
+    private void compact() throws IOException {
+        File tmp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            for (Entry entry : live.values()) {
+                RecordFormat.write(out, RecordFormat.CREATE, TaskCodec.encode(entry.task, entry.status));
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!tmp.renameTo(snapshotPath)) {
+            throw new IOException("Cannot replace " + snapshotPath);
+        }
+        try {
+            logOut.close();
+        } catch (IOException e) {
+            // Всё из журнала уже в снимке; недописанный после сбоя хвост не нужен
+        }
+        openLog(false);
+        logRecords = 0;
+    }
+
+    private void openLog(boolean append) throws IOException {
+        logFile = new FileOutputStream(logPath, append);
+        logOut = new DataOutputStream(new BufferedOutputStream(logFile, 16 * 1024));
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotPath), 64 * 1024))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown snapshot format: " + snapshotPath);
+            }
+            // Снимок подменяется целиком через rename, так что конец файла допустим только
+            // между записями; оборванная запись – повреждение, а не хвост, как в журнале
+            while (true) {
+                in.mark(1);
+                if (in.read() < 0) {
+                    break;
+                }
+                in.reset();
+                RecordFormat.Record record = RecordFormat.read(in);
+                if (record == null) {
+                    throw new IOException("Corrupt snapshot record after task " + live.size());
+                }
+                apply(record);
+            }
+        }
+    }
+
+    /**
+     * Доигрывает журнал и возвращает длину его целой части.
+     */
+    private long replayLog() throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(logPath), 64 * 1024))) {
+            RecordFormat.Record record;
+            while ((record = RecordFormat.read(in)) != null) {
+                apply(record);
+                validLength += record.size();
+                logRecords++;
+            }
+        }
+        return validLength;
+    }
+
+    private void apply(RecordFormat.Record record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload));
+        switch (record.type) {
+            case RecordFormat.CREATE: {
+                Task task;
+                try {
+                    task = TaskCodec.decode(record.payload);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupt task record", e);
+                }
+                if (!live.containsKey(task.getId())) {
+                    live.put(task.getId(), new Entry(task, task.getStatus()));
+                }
+                break;
+            }
+            case RecordFormat.DELETE:
+                live.remove(in.readLong());
+                break;
+            case RecordFormat.STATUS: {
+                Entry entry = live.get(in.readLong());
+                int status = in.readByte();
+                if (!Task.isValidStatus(status)) {
+                    throw new IOException("Corrupt status record: " + status);
+                }
+                if (entry != null) {
+                    entry.status = status;
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown record type " + record.type);
+        }
+    }
+}
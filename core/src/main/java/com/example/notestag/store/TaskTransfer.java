@@ -0,0 +1,479 @@
+package com.example.notestag.store;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+import com.example.notestag.TaskCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый импорт и экспорт задач между устройствами и в резервные копии.
+ * Два формата:
+ * <pre>
+ * JSON Lines: одна задача на строку
+ *   {"id":1,"createdAt":..,"status":0,"title":"..","description":"..","tags":[{"group":"..","name":".."}]}
+ * бинарный:   ["NTEX"][версия:4]{запись RecordFormat.CREATE с TaskCodec}
+ * </pre>
+ * Чтение идёт по одной задаче, в памяти держится только текущая пачка из chunkSize задач,
+ * которая целиком отдаётся в Sink – так индексы обновляются раз на пачку.
+ * Импортированные задачи получают новые id, дата создания и статус сохраняются: id из
+ * копии другого устройства могут совпасть с id здешних задач. Поэтому повторный импорт
+ * той же копии добавит её задачи ещё раз.
+ */
+public final class TaskTransfer {
+
+    /**
+     * Получает прочитанные задачи пачками. Вызывается на потоке импорта; может задержать
+     * чтение, пока не готов принять следующую пачку, или прервать импорт исключением.
+     */
+    public interface Sink {
+        void accept(List<Task> chunk) throws IOException;
+    }
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final int EXPORT_MAGIC = 0x4E544558; // "NTEX"
+    private static final int EXPORT_VERSION = 1;
+
+    private TaskTransfer() {
+    }
+
+    public static void exportJsonLines(Iterable<Task> tasks, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        TagDictionary dictionary = TagDictionary.getInstance();
+        for (Task task : tasks) {
+            writer.write("{\"id\":");
+            writer.write(Long.toString(task.getId()));
+            writer.write(",\"createdAt\":");
+            writer.write(Long.toString(task.getCreatedAt()));
+            writer.write(",\"status\":");
+            writer.write(Integer.toString(task.getStatus()));
+            writer.write(",\"title\":");
+            writeString(writer, task.getTitle());
+            writer.write(",\"description\":");
+            writeString(writer, task.getDescription());
+            writer.write(",\"tags\":[");
+            int[] tagIds = task.getTagIds();
+            for (int i = 0; i < tagIds.length; i++) {
+                writer.write(i == 0 ? "{\"group\":" : ",{\"group\":");
+                writeString(writer, dictionary.getGroup(tagIds[i]));
+                writer.write(",\"name\":");
+                writeString(writer, dictionary.getName(tagIds[i]));
+                writer.write('}');
+            }
+            writer.write("]}\n");
+        }
+        writer.flush();
+    }
+
+    public static void exportBinary(Iterable<Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(EXPORT_MAGIC);
+        data.writeInt(EXPORT_VERSION);
+        for (Task task : tasks) {
+            RecordFormat.write(data, RecordFormat.CREATE, TaskCodec.encode(task));
+        }
+        data.flush();
+    }
+
+    /**
+     * Читает задачи в любом из двух форматов (определяется по первым байтам).
+     *
+     * @return сколько задач прочитано
+     * @throws IOException при ошибке чтения или повреждённых данных
+     */
+    public static int importTasks(InputStream in, int chunkSize, Sink sink) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        buffered.mark(4);
+        int magic = 0;
+        int read = 0;
+        for (; read < 4; read++) {
+            int b = buffered.read();
+            if (b < 0) {
+                break;
+            }
+            magic = (magic << 8) | b;
+        }
+        buffered.reset();
+        if (read == 4 && magic == EXPORT_MAGIC) {
+            return importBinary(new DataInputStream(buffered), chunkSize, sink);
+        }
+        return importJsonLines(new InputStreamReader(buffered, StandardCharsets.UTF_8), chunkSize, sink);
+    }
+
+    private static int importBinary(DataInputStream in, int chunkSize, Sink sink) throws IOException {
+        in.readInt(); // магия уже проверена
+        int version = in.readInt();
+        if (version != EXPORT_VERSION) {
+            throw new IOException("Unknown export version " + version);
+        }
+        Chunker chunker = new Chunker(chunkSize, sink);
+        while (true) {
+            // Конец файла допустим только между записями; оборванная запись – повреждение, а не хвост
+            in.mark(1);
+            if (in.read() < 0) {
+                break;
+            }
+            in.reset();
+            RecordFormat.Record record = RecordFormat.read(in);
+            if (record == null) {
+                throw new IOException("Corrupt record after task " + chunker.count);
+            }
+            if (record.type != RecordFormat.CREATE) {
+                throw new IOException("Unexpected record type " + record.type);
+            }
+            try {
+                Task decoded = TaskCodec.decode(record.payload);
+                Task task = new Task(decoded.getTitle(), decoded.getDescription(),
+                        decoded.getTagIds(), decoded.getCreatedAt());
+                task.setStatus(decoded.getStatus());
+                chunker.add(task);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt task record", e);
+            }
+        }
+        return chunker.finish();
+    }
+
+    private static int importJsonLines(Reader reader, int chunkSize, Sink sink) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        Chunker chunker = new Chunker(chunkSize, sink);
+        while (json.skipWhitespace() >= 0) {
+            chunker.add(json.readTask());
+        }
+        return chunker.finish();
+    }
+
+    private static final class Chunker {
+        final int chunkSize;
+        final Sink sink;
+        List<Task> chunk;
+        int count;
+
+        Chunker(int chunkSize, Sink sink) {
+            this.chunkSize = Math.max(1, chunkSize);
+            this.sink = sink;
+            this.chunk = new ArrayList<>(this.chunkSize);
+        }
+
+        void add(Task task) throws IOException {
+            chunk.add(task);
+            count++;
+            if (chunk.size() == chunkSize) {
+                sink.accept(chunk);
+                // Получатель может держать пачку у себя (например, отдать на UI-поток)
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        int finish() throws IOException {
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+            }
+            return count;
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Минимальный потоковый разбор JSON ровно под формат экспорта: задача читается
+     * посимвольно из собственного буфера, незнакомые поля пропускаются.
+     */
+    private static final class JsonReader {
+        private final Reader reader;
+        private final char[] buffer = new char[16 * 1024];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+        private int line = 1;
+
+        JsonReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        Task readTask() throws IOException {
+            long createdAt = System.currentTimeMillis();
+            int status = Task.STATUS_NOT_STARTED;
+            String title = "";
+            String description = "";
+            List<Integer> tagIds = new ArrayList<>();
+
+            expect('{');
+            if (skipWhitespace() == '}') {
+                next();
+            } else {
+                do {
+                    String field = readString();
+                    expect(':');
+                    switch (field) {
+                        case "createdAt":
+                            createdAt = readLong();
+                            break;
+                        case "status":
+                            long value = readLong();
+                            if (!Task.isValidStatus(value)) {
+                                throw error("Unknown status " + value);
+                            }
+                            status = (int) value;
+                            break;
+                        case "title":
+                            title = readString();
+                            break;
+                        case "description":
+                            description = readString();
+                            break;
+                        case "tags":
+                            readTags(tagIds);
+                            break;
+                        default:
+                            skipValue();
+                    }
+                } while (nextSeparator('}'));
+            }
+
+            int[] tags = new int[tagIds.size()];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = tagIds.get(i);
+            }
+            // Поле "id" пропускается как неизвестное: задача получает здешний id
+            Task task = new Task(title, description, tags, createdAt);
+            task.setStatus(status);
+            return task;
+        }
+
+        private void readTags(List<Integer> tagIds) throws IOException {
+            TagDictionary dictionary = TagDictionary.getInstance();
+            expect('[');
+            if (skipWhitespace() == ']') {
+                next();
+                return;
+            }
+            do {
+                String group = "";
+                String name = null;
+                expect('{');
+                if (skipWhitespace() == '}') {
+                    next();
+                } else {
+                    do {
+                        String field = readString();
+                        expect(':');
+                        if (field.equals("group")) {
+                            group = readString();
+                        } else if (field.equals("name")) {
+                            name = readString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (nextSeparator('}'));
+                }
+                if (name == null) {
+                    throw error("Tag without name");
+                }
+                tagIds.add(dictionary.intern(group, name));
+            } while (nextSeparator(']'));
+        }
+
+        /** true – дальше идёт ещё элемент (была запятая), false – встретилась закрывающая скобка. */
+        private boolean nextSeparator(char close) throws IOException {
+            int c = skipWhitespace();
+            next();
+            if (c == ',') {
+                return true;
+            }
+            if (c == close) {
+                return false;
+            }
+            throw error("Expected ',' or '" + close + "'");
+        }
+
+        private void skipValue() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                next();
+                if (skipWhitespace() == close) {
+                    next();
+                    return;
+                }
+                do {
+                    if (c == '{') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (nextSeparator(close));
+            } else {
+                // Число, true, false или null
+                while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                    next();
+                }
+            }
+        }
+
+        private long readLong() throws IOException {
+            skipWhitespace();
+            boolean negative = peek() == '-';
+            if (negative) {
+                next();
+            }
+            long value = 0;
+            int digits = 0;
+            int c;
+            while ((c = peek()) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                next();
+            }
+            if (digits == 0) {
+                throw error("Expected number");
+            }
+            return negative ? -value : value;
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            text.setLength(0);
+            while (true) {
+                int c = next();
+                if (c < 0) {
+                    throw error("Unterminated string");
+                }
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                c = next();
+                switch (c) {
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'u': {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(next(), 16);
+                            if (digit < 0) {
+                                throw error("Bad \\u escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    }
+                    case '"':
+                    case '\\':
+                    case '/':
+                        text.append((char) c);
+                        break;
+                    default:
+                        throw error("Bad escape");
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (skipWhitespace() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            next();
+        }
+
+        /** Пропускает пробелы и возвращает следующий символ, не забирая его; -1 в конце. */
+        int skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) >= 0 && (Character.isWhitespace(c) || c == '\uFEFF')) {
+                next();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+                if (c == '\n') {
+                    line++;
+                }
+            }
+            return c;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at line " + line);
+        }
+    }
+}
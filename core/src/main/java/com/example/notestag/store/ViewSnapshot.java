@@ -0,0 +1,127 @@
+package com.example.notestag.store;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+import com.example.notestag.TaskCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Верх текущего экрана для холодного старта: режим сортировки, фильтр и первые задачи
+ * видимого списка. Файл маленький, его можно прочитать до первого кадра, пока полный
+ * набор задач и индексы грузятся в фоне.
+ * <pre>
+ * ["NTVS"][версия:4][сортировка:4][число тегов фильтра:4]{[группа:UTF][тег:UTF]}
+ * [число задач:4]{запись RecordFormat.CREATE с TaskCodec}
+ * </pre>
+ */
+public final class ViewSnapshot {
+
+    /** Сколько первых задач сохраняем – с запасом на высокий экран. */
+    public static final int MAX_TASKS = 30;
+
+    private static final String SNAPSHOT_FILE = "view.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x4E545653; // "NTVS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int sortMode;
+    private final List<Integer> filterTags;
+    private final List<Task> tasks;
+
+    private ViewSnapshot(int sortMode, List<Integer> filterTags, List<Task> tasks) {
+        this.sortMode = sortMode;
+        this.filterTags = filterTags;
+        this.tasks = tasks;
+    }
+
+    public int getSortMode() {
+        return sortMode;
+    }
+
+    public List<Integer> getFilterTags() {
+        return filterTags;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Читает снимок; null, если его нет или он повреждён (тогда стартуем с пустого экрана).
+     */
+    public static ViewSnapshot read(File directory) {
+        File path = new File(directory, SNAPSHOT_FILE);
+        if (!path.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            int sortMode = in.readInt();
+            TagDictionary dictionary = TagDictionary.getInstance();
+            int filterCount = in.readInt();
+            List<Integer> filterTags = new ArrayList<>();
+            for (int i = 0; i < filterCount; i++) {
+                String group = in.readUTF();
+                filterTags.add(dictionary.intern(group, in.readUTF()));
+            }
+            int taskCount = Math.min(in.readInt(), MAX_TASKS);
+            List<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                RecordFormat.Record record = RecordFormat.read(in);
+                if (record == null || record.type != RecordFormat.CREATE) {
+                    return null;
+                }
+                tasks.add(TaskCodec.decode(record.payload));
+            }
+            return new ViewSnapshot(sortMode, Collections.unmodifiableList(filterTags),
+                    Collections.unmodifiableList(tasks));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Сохраняет первые MAX_TASKS задач видимого списка вместе с фильтром и сортировкой.
+     */
+    public static void write(File directory, int sortMode, Collection<Integer> filterTags, List<Task> visible)
+            throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int taskCount = Math.min(visible.size(), MAX_TASKS);
+        File tmp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(sortMode);
+            out.writeInt(filterTags.size());
+            for (int tagId : filterTags) {
+                out.writeUTF(dictionary.getGroup(tagId));
+                out.writeUTF(dictionary.getName(tagId));
+            }
+            out.writeInt(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                RecordFormat.write(out, RecordFormat.CREATE, TaskCodec.encode(visible.get(i)));
+            }
+            out.flush();
+        }
+        if (!tmp.renameTo(new File(directory, SNAPSHOT_FILE))) {
+            throw new IOException("Cannot replace snapshot in " + directory);
+        }
+    }
+}
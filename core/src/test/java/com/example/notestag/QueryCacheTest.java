@@ -0,0 +1,113 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class QueryCacheTest {
+
+    private static final int[] SORT_MODES = {TaskSorter.SORT_BY_DATE, TaskSorter.SORT_BY_IMPORTANCE,
+            TaskSorter.SORT_BY_URGENCY, TaskSorter.SORT_BY_TITLE, TaskSorter.SORT_BY_SPHERE};
+
+    private static List<Task> freshQuery(TaskIndex index, List<Integer> filter, int sortMode) {
+        List<Task> result = index.query(filter);
+        TaskSorter.sort(result, sortMode);
+        return result;
+    }
+
+    @Test
+    public void patchedResultsMatchFreshQuery() {
+        TestTasks random = new TestTasks(61, 5);
+        List<Task> live = new ArrayList<>(random.tasks(3000));
+        TaskIndex index = new TaskIndex();
+        index.addAll(live);
+        QueryCache cache = new QueryCache(Long.MAX_VALUE);
+        List<List<Integer>> filters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            filters.add(random.filter());
+        }
+        for (List<Integer> filter : filters) {
+            for (int sortMode : SORT_MODES) {
+                cache.put(filter, sortMode, freshQuery(index, filter, sortMode), cache.version());
+            }
+        }
+
+        for (int round = 0; round < 30; round++) {
+            List<Task> removed = new ArrayList<>();
+            for (int i = random.random.nextInt(10); i > 0; i--) {
+                removed.add(live.remove(random.random.nextInt(live.size())));
+            }
+            List<Task> added = random.tasks(random.random.nextInt(20));
+            live.addAll(added);
+            index.removeAll(removed);
+            index.addAll(added);
+            cache.patch(added, removed);
+
+            for (List<Integer> filter : filters) {
+                for (int sortMode : SORT_MODES) {
+                    List<Task> cached = cache.get(filter, sortMode);
+                    assertNotNull(cached);
+                    assertEquals("round " + round + " filter " + filter + " sort mode " + sortMode,
+                            freshQuery(index, filter, sortMode), cached);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void largeBatchDropsEntries() {
+        TestTasks random = new TestTasks(62, 5);
+        TaskIndex index = new TaskIndex();
+        index.addAll(random.tasks(500));
+        QueryCache cache = new QueryCache(Long.MAX_VALUE);
+        List<Integer> filter = Collections.emptyList();
+        cache.put(filter, TaskSorter.SORT_BY_DATE, freshQuery(index, filter, TaskSorter.SORT_BY_DATE), cache.version());
+        cache.patch(random.tasks(1000), Collections.emptyList());
+        assertNull(cache.get(filter, TaskSorter.SORT_BY_DATE));
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void resultComputedBeforePatchIsNotCached() {
+        TestTasks random = new TestTasks(63, 5);
+        QueryCache cache = new QueryCache(Long.MAX_VALUE);
+        long version = cache.version();
+        cache.patch(random.tasks(1), Collections.emptyList());
+        cache.put(Collections.emptyList(), TaskSorter.SORT_BY_DATE, random.tasks(5), version);
+        assertNull(cache.get(Collections.emptyList(), TaskSorter.SORT_BY_DATE));
+    }
+
+    @Test
+    public void keyIgnoresTagOrderAndDuplicates() {
+        TestTasks random = new TestTasks(64, 5);
+        QueryCache cache = new QueryCache(Long.MAX_VALUE);
+        int a = random.tagPool[0];
+        int b = random.tagPool[1];
+        List<Task> result = random.tasks(3);
+        cache.put(Arrays.asList(a, b), TaskSorter.SORT_BY_TITLE, result, cache.version());
+        assertEquals(result, cache.get(Arrays.asList(b, a, b), TaskSorter.SORT_BY_TITLE));
+        assertNull(cache.get(Arrays.asList(a, b), TaskSorter.SORT_BY_DATE));
+    }
+
+    @Test
+    public void budgetEvictsLeastRecentlyUsed() {
+        TestTasks random = new TestTasks(65, 5);
+        List<Task> result = random.tasks(100);
+        QueryCache cache = new QueryCache(3000);
+        for (int sortMode : SORT_MODES) {
+            cache.put(Collections.emptyList(), sortMode, result, cache.version());
+        }
+        assertTrue(cache.getBytes() <= 3000);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertNull(cache.get(Collections.emptyList(), SORT_MODES[0]));
+        assertNotNull(cache.get(Collections.emptyList(), SORT_MODES[SORT_MODES.length - 1]));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class QueryPlanTest {
+
+    /** Запрос вместе с проверкой "в лоб" по одной задаче. */
+    private static final class Case {
+        final TaskQuery query;
+        final Predicate<Task> matches;
+
+        Case(TaskQuery query, Predicate<Task> matches) {
+            this.query = query;
+            this.matches = matches;
+        }
+    }
+
+    private static boolean hasWordWithPrefix(Task task, String prefix) {
+        List<String> words = new ArrayList<>(TextIndex.tokenize(task.getTitle()));
+        words.addAll(TextIndex.tokenize(task.getDescription()));
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Case randomCase(TestTasks random, int depth) {
+        int kind = random.random.nextInt(depth > 2 ? 4 : 7);
+        switch (kind) {
+            case 0: {
+                int tagId = random.tagPool[random.random.nextInt(random.tagPool.length)];
+                return new Case(TaskQuery.tag(tagId), task -> task.hasTag(tagId));
+            }
+            case 1: {
+                int first = random.random.nextInt(3);
+                int second = random.random.nextInt(3);
+                return new Case(TaskQuery.status(first, second),
+                        task -> task.getStatus() == first || task.getStatus() == second);
+            }
+            case 2: {
+                long from = random.random.nextBoolean() ? Long.MIN_VALUE : 1_000_000L + random.random.nextInt(500);
+                long to = random.random.nextBoolean() ? Long.MAX_VALUE : 1_000_000L + random.random.nextInt(500);
+                return new Case(TaskQuery.createdBetween(from, to),
+                        task -> task.getCreatedAt() >= from && task.getCreatedAt() < to);
+            }
+            case 3: {
+                String word = random.word();
+                String prefix = TextIndex.tokenize(word.substring(0, 1 + random.random.nextInt(word.length()))).get(0);
+                return new Case(TaskQuery.text(word.substring(0, prefix.length())),
+                        task -> hasWordWithPrefix(task, prefix));
+            }
+            case 4: {
+                Case child = randomCase(random, depth + 1);
+                return new Case(TaskQuery.not(child.query), child.matches.negate());
+            }
+            default: {
+                List<TaskQuery> queries = new ArrayList<>();
+                Predicate<Task> matches = null;
+                boolean and = kind == 5;
+                for (int i = 2 + random.random.nextInt(2); i > 0; i--) {
+                    Case child = randomCase(random, depth + 1);
+                    queries.add(child.query);
+                    matches = matches == null ? child.matches : and ? matches.and(child.matches) : matches.or(child.matches);
+                }
+                return new Case(and ? TaskQuery.and(queries) : TaskQuery.or(queries), matches);
+            }
+        }
+    }
+
+    private static List<Task> bruteForce(List<Task> tasks, Predicate<Task> matches) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (matches.test(task)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void planMatchesBruteForce() {
+        TestTasks random = new TestTasks(71, 6);
+        List<Task> live = new ArrayList<>(random.tasks(3000));
+        TaskIndex index = new TaskIndex();
+        index.addAll(live);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 300; i++) {
+                Case test = randomCase(random, 0);
+                assertEquals(test.query.toString(), bruteForce(live, test.matches), index.query(test.query));
+            }
+            List<Task> removed = new ArrayList<>(live.subList(0, live.size() / 4));
+            live.removeAll(removed);
+            index.removeAll(removed);
+            List<Task> changed = live.subList(0, 200);
+            for (Task task : changed) {
+                task.setStatus((task.getStatus() + 1) % 3);
+            }
+            index.updateStatus(changed);
+        }
+    }
+
+    @Test
+    public void orderBySortsFilteredTasks() {
+        TestTasks random = new TestTasks(72, 6);
+        List<Task> tasks = random.tasks(2000);
+        TaskIndex index = new TaskIndex();
+        index.addAll(tasks);
+        for (int i = 0; i < 50; i++) {
+            Case test = randomCase(random, 0);
+            List<Task> expected = bruteForce(tasks, test.matches);
+            TaskSorter.sort(expected, TaskSorter.SORT_BY_IMPORTANCE);
+            assertEquals(test.query.toString(), expected,
+                    index.query(test.query.orderBy(TaskSorter.SORT_BY_IMPORTANCE)));
+        }
+    }
+
+    @Test
+    public void parsedQueryMatchesBuiltQuery() {
+        TestTasks random = new TestTasks(73, 4);
+        List<Task> tasks = random.tasks(2000);
+        TaskIndex index = new TaskIndex();
+        index.addAll(tasks);
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int work = dictionary.find(TagDictionary.GROUP_SPHERE, "Работа");
+        int high = dictionary.find(TagDictionary.GROUP_IMPORTANCE, "Высокая");
+        int burning = dictionary.find(TagDictionary.GROUP_URGENCY, "Горит");
+        TaskQuery parsed = TaskQuery.parse("[Сфера:Работа] AND ([Важность:Высокая] OR [Срочность:Горит])"
+                + " NOT status:done кв");
+        TaskQuery built = TaskQuery.and(TaskQuery.tag(work), TaskQuery.or(TaskQuery.tag(high), TaskQuery.tag(burning)),
+                TaskQuery.not(TaskQuery.status(Task.STATUS_DONE)), TaskQuery.text("кв"));
+        assertEquals(index.query(built), index.query(parsed));
+        assertEquals(index.query(TaskQuery.all()), index.query(TaskQuery.parse("  ")));
+        assertTrue(index.query(TaskQuery.parse("[Сфера:Нет такой]")).isEmpty());
+    }
+
+    @Test
+    public void parseErrorsCarryPosition() {
+        for (String bad : new String[] {"(дом", "[Сфера", "status:later", "created:2026-13-01", "NOT", "дом )"}) {
+            try {
+                TaskQuery.parse(bad);
+                fail(bad);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(bad + ": " + expected.getMessage(), expected.getMessage().contains("at position"));
+            }
+        }
+    }
+}
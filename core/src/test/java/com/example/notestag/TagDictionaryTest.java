@@ -0,0 +1,99 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TagDictionaryTest {
+
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+
+    @Test
+    public void internReturnsSameIdAndRoundTripsNames() {
+        int id = dictionary.intern("Проект", "Ремонт");
+        assertEquals(id, dictionary.intern("Проект", "Ремонт"));
+        assertEquals(id, dictionary.find("Проект", "Ремонт"));
+        assertEquals("Проект", dictionary.getGroup(id));
+        assertEquals("Ремонт", dictionary.getName(id));
+        assertEquals(-1, dictionary.find("Проект", "Нет такого"));
+    }
+
+    @Test
+    public void ranksFollowOrderWithinGroup() {
+        int first = dictionary.intern("Ранги", "первый");
+        int second = dictionary.intern("Ранги", "второй");
+        assertEquals(dictionary.getRank(first) + 1, dictionary.getRank(second));
+        assertEquals(dictionary.getGroupOrdinal(first), dictionary.getGroupOrdinal(second));
+        assertEquals("Ранги", dictionary.getGroupName(dictionary.getGroupOrdinal(first)));
+    }
+
+    @Test
+    public void builtInLevelsAreSortKeys() {
+        int low = dictionary.find(TagDictionary.GROUP_IMPORTANCE, "Низкая");
+        int critical = dictionary.find(TagDictionary.GROUP_IMPORTANCE, "Критическая");
+        int burning = dictionary.find(TagDictionary.GROUP_URGENCY, "Горит");
+        assertEquals(0, dictionary.getImportanceLevel(low));
+        assertEquals(TagDictionary.importanceLevelCount() - 1, dictionary.getImportanceLevel(critical));
+        assertEquals(TagDictionary.urgencyLevelCount() - 1, dictionary.getUrgencyLevel(burning));
+        assertEquals(TagDictionary.NO_LEVEL, dictionary.getUrgencyLevel(low));
+        assertEquals(TagDictionary.NO_LEVEL, dictionary.getSphereRank(burning));
+        int custom = dictionary.intern(TestTasks.GROUP, "без уровня");
+        assertEquals(TagDictionary.NO_LEVEL, dictionary.getImportanceLevel(custom));
+    }
+
+    @Test
+    public void spheresKeepDisplayOrderButSortAlphabetically() {
+        int work = dictionary.find(TagDictionary.GROUP_SPHERE, "Работа");
+        int personal = dictionary.find(TagDictionary.GROUP_SPHERE, "Личное");
+        int home = dictionary.find(TagDictionary.GROUP_SPHERE, "Дом");
+        // В выборе тегов сферы идут по id и рангу: Работа, Личное, Дом…
+        assertEquals(0, dictionary.getRank(work));
+        assertEquals(work + 1, personal);
+        assertEquals(personal + 1, home);
+        assertEquals(2, dictionary.getRank(home));
+        // Сортировка по сфере – по алфавиту: Дом, Здоровье, Личное, Обучение, Покупки, Работа…
+        assertEquals(0, dictionary.getSphereRank(home));
+        assertEquals(2, dictionary.getSphereRank(personal));
+        assertEquals(5, dictionary.getSphereRank(work));
+        assertEquals(TagDictionary.sphereCount() - 1,
+                dictionary.getSphereRank(dictionary.find(TagDictionary.GROUP_SPHERE, "Финансы")));
+        assertEquals(-1, dictionary.findGroup("Нет такой группы"));
+    }
+
+    @Test
+    public void concurrentInternGivesOneIdPerTag() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<int[]>> jobs = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                jobs.add(() -> {
+                    int[] ids = new int[200];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = dictionary.intern("Гонка", "тег" + i);
+                    }
+                    return ids;
+                });
+            }
+            List<Future<int[]>> results = executor.invokeAll(jobs);
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(expected[i], ids[i]);
+                    assertEquals("тег" + i, dictionary.getName(ids[i]));
+                }
+            }
+            assertTrue(dictionary.size() > expected[expected.length - 1]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TagPickerModelTest {
+
+    private static List<String> rows(TagPickerModel model) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<String> rows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (model.getRowType(row) == TagPickerModel.ROW_HEADER) {
+                rows.add("# " + model.getGroupName(row));
+            } else {
+                rows.add(dictionary.getName(model.getTagId(row)));
+            }
+        }
+        return rows;
+    }
+
+    private static TagPickerModel model() {
+        TagPickerModel model = new TagPickerModel();
+        model.addTag("Выбор: Сфера", "Работа");
+        model.addTag("Выбор: Сфера", "Дом");
+        model.addTag("Выбор: Место", "Ёлкино");
+        model.addTag("Выбор: Место", "Офис");
+        model.addTag("Выбор: Сфера", "Работа");
+        return model;
+    }
+
+    @Test
+    public void rowsListGroupsInInsertionOrder() {
+        assertEquals(Arrays.asList("# Выбор: Сфера", "Работа", "Дом", "# Выбор: Место", "Ёлкино", "Офис"),
+                rows(model()));
+    }
+
+    @Test
+    public void filterMatchesTagsAndGroupsAndHidesEmptyGroups() {
+        TagPickerModel model = model();
+        model.setFilter(" елк ");
+        assertEquals(Arrays.asList("# Выбор: Место", "Ёлкино"), rows(model));
+        model.setFilter("СФЕРА");
+        assertEquals(Arrays.asList("# Выбор: Сфера", "Работа", "Дом"), rows(model));
+        model.setFilter("нет такого");
+        assertEquals(0, model.getRowCount());
+        model.setFilter(null);
+        assertEquals(6, model.getRowCount());
+    }
+
+    @Test
+    public void rowIdsAreStableAcrossFilters() {
+        TagPickerModel model = model();
+        int office = model.addTag("Выбор: Место", "Офис");
+        model.setFilter("офис");
+        assertEquals(office, model.getRowId(1));
+        assertTrue(model.getRowId(0) < 0);
+        model.setFilter("");
+        assertEquals(office, model.getRowId(5));
+    }
+
+    @Test
+    public void selectionKeepsOrderAndSurvivesFilter() {
+        TagPickerModel model = model();
+        int office = model.addTag("Выбор: Место", "Офис");
+        int home = model.addTag("Выбор: Сфера", "Дом");
+        model.setSelected(office, true);
+        model.setSelected(home, true);
+        model.setFilter("работа");
+        assertTrue(model.isSelected(office));
+        assertArrayEquals(new int[] {office, home}, model.getSelectedIds());
+        model.setSelected(office, false);
+        assertFalse(model.isSelected(office));
+        assertArrayEquals(new int[] {home}, model.getSelectedIds());
+    }
+}
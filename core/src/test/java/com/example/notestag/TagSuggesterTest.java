@@ -0,0 +1,133 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TagSuggesterTest {
+
+    private final TagSuggester suggester = TagSuggester.getInstance();
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+    private final int home = dictionary.intern("Подсказки", "Дом");
+    private final int work = dictionary.intern("Подсказки", "Работа");
+    private final int shop = dictionary.intern("Подсказки", "Магазин");
+
+    private static Task task(String title, int... tagIds) {
+        return new Task(title, "", tagIds);
+    }
+
+    private List<Task> history() {
+        return Arrays.asList(
+                task("купить молоко", home, shop),
+                task("купить хлеб", home, shop),
+                task("купить билеты", home),
+                task("отчёт за квартал", work),
+                task("отчёт по проекту", work),
+                task("отчислить взносы", work));
+    }
+
+    private List<List<Integer>> suggestions(List<String> titles) {
+        List<List<Integer>> result = new ArrayList<>();
+        for (String title : titles) {
+            result.add(suggester.suggest(title, Collections.emptyList(), 5));
+        }
+        return result;
+    }
+
+    @Test
+    public void wordsSuggestTheirTags() throws InterruptedException {
+        suggester.rebuild(history());
+        suggester.awaitPublished();
+        assertEquals(Arrays.asList(home, shop), suggester.suggest("купить ", Collections.emptyList(), 2));
+        assertEquals(work, (int) suggester.suggest("ОТЧЁТ ", Collections.emptyList(), 1).get(0));
+        // Недописанное "отч" раскрывается в "отчет" и "отчислить"
+        assertEquals(work, (int) suggester.suggest("новый отч", Collections.emptyList(), 1).get(0));
+        assertTrue(suggester.suggest("купить", Collections.emptyList(), 0).isEmpty());
+    }
+
+    @Test
+    public void selectedTagsAreExcludedAndSuggestNeighbours() throws InterruptedException {
+        suggester.rebuild(history());
+        suggester.awaitPublished();
+        List<Integer> suggested = suggester.suggest("", Collections.singletonList(shop), 3);
+        assertFalse(suggested.contains(shop));
+        assertEquals(home, (int) suggested.get(0));
+    }
+
+    @Test
+    public void forgottenTasksStopInfluencing() throws InterruptedException {
+        suggester.rebuild(history());
+        Task outlier = task("купить ноутбук", work);
+        suggester.observe(Collections.singletonList(outlier));
+        suggester.awaitPublished();
+        assertTrue(suggester.suggest("ноутбук ", Collections.emptyList(), 3).contains(work));
+
+        suggester.forget(Collections.singletonList(outlier));
+        suggester.awaitPublished();
+        // Слова "ноутбук" больше нет – остаётся только общая частота
+        assertEquals(suggester.suggest("", Collections.emptyList(), 3),
+                suggester.suggest("ноутбук ", Collections.emptyList(), 3));
+        assertEquals(Arrays.asList(home, shop), suggester.suggest("купить ", Collections.emptyList(), 2));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuild() throws InterruptedException {
+        TestTasks random = new TestTasks(91, 6);
+        List<Task> live = new ArrayList<>(random.tasks(2000));
+        suggester.rebuild(live);
+        for (int round = 0; round < 5; round++) {
+            List<Task> removed = new ArrayList<>(live.subList(0, 150));
+            live.removeAll(removed);
+            List<Task> added = random.tasks(100);
+            live.addAll(added);
+            suggester.forget(removed);
+            suggester.observe(added);
+        }
+        suggester.awaitPublished();
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String word = random.word();
+            titles.add(random.word() + " " + (i % 2 == 0 ? word : word.substring(0, 2)));
+        }
+        List<List<Integer>> incremental = suggestions(titles);
+
+        suggester.rebuild(live);
+        suggester.awaitPublished();
+        assertEquals(suggestions(titles), incremental);
+    }
+
+    @Test
+    public void rebuildKeepsSuggestionsUntilPublished() throws Exception {
+        suggester.rebuild(history());
+        suggester.awaitPublished();
+        List<Task> larger = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            larger.addAll(history());
+        }
+        suggester.rebuild(larger);
+        Thread waiter = new Thread(() -> {
+            try {
+                suggester.awaitPublished();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        // Пока новая модель собирается, подсказки идут по старой, а не пустеют
+        int checks = 0;
+        while (waiter.isAlive()) {
+            assertEquals(Arrays.asList(home, shop), suggester.suggest("купить ", Collections.emptyList(), 2));
+            checks++;
+        }
+        waiter.join();
+        assertTrue(checks > 0);
+        assertEquals(Arrays.asList(home, shop), suggester.suggest("купить ", Collections.emptyList(), 2));
+    }
+}
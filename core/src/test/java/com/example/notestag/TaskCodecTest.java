@@ -0,0 +1,82 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class TaskCodecTest {
+
+    private static void assertRoundTrip(Task task) {
+        byte[] bytes = TaskCodec.encode(task);
+        assertEquals(TaskCodec.encodedSize(task), bytes.length);
+        Task decoded = TaskCodec.decode(bytes);
+        assertEquals(task.getId(), decoded.getId());
+        assertEquals(task.getTitle(), decoded.getTitle());
+        assertEquals(task.getDescription(), decoded.getDescription());
+        assertEquals(task.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(task.getStatus(), decoded.getStatus());
+        assertArrayEquals(task.getTagIds(), decoded.getTagIds());
+        assertEquals(task.getTags(), decoded.getTags());
+    }
+
+    @Test
+    public void randomTasksRoundTrip() {
+        for (Task task : new TestTasks(21, 8).tasks(1000)) {
+            assertRoundTrip(task);
+        }
+    }
+
+    @Test
+    public void unicodeAndEmptyStringsRoundTrip() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] tags = {dictionary.intern("Эмодзи 😀", "тег\u0000с нулём"), dictionary.intern("", "")};
+        Task task = new Task(Long.MAX_VALUE / 3, "Ёлка 🎄 – €", "", tags, -42);
+        task.setStatus(Task.STATUS_IN_PROGRESS);
+        assertRoundTrip(task);
+        assertRoundTrip(new Task("", "", new int[0]));
+    }
+
+    @Test
+    public void recordsFollowEachOtherInOneBuffer() {
+        Task first = new Task("первая", "", new int[0]);
+        Task second = new Task("вторая", "x", new int[0]);
+        ByteBuffer buffer = ByteBuffer.allocate(TaskCodec.encodedSize(first) + TaskCodec.encodedSize(second));
+        TaskCodec.encode(first, buffer);
+        TaskCodec.encode(second, buffer);
+        buffer.flip();
+        assertEquals(first.getId(), TaskCodec.decode(buffer).getId());
+        assertEquals(second.getId(), TaskCodec.decode(buffer).getId());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void truncatedRecordIsRejected() {
+        byte[] bytes = TaskCodec.encode(new Task("обрезанная", "запись", new int[0]));
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                TaskCodec.decode(Arrays.copyOf(bytes, length));
+                fail("decoded " + length + " of " + bytes.length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                // ожидаемо
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        byte[] bytes = TaskCodec.encode(new Task("версия", "", new int[0]));
+        bytes[0] = TaskCodec.VERSION + 1;
+        TaskCodec.decode(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownStatusIsRejected() {
+        Task task = new Task("статус", "", new int[0]);
+        TaskCodec.decode(TaskCodec.encode(task, 3));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TaskIndexTest {
+
+    private static List<Task> bruteForce(List<Task> tasks, List<Integer> filter) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.hasAllTags(filter)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void queryMatchesLinearScan() {
+        TestTasks random = new TestTasks(1, 12);
+        List<Task> tasks = random.tasks(5000);
+        TaskIndex index = new TaskIndex();
+        index.addAll(tasks);
+        for (int i = 0; i < 300; i++) {
+            List<Integer> filter = random.filter();
+            assertEquals("filter " + filter, bruteForce(tasks, filter), index.query(filter));
+        }
+    }
+
+    @Test
+    public void queryMatchesLinearScanAfterRemovalsAndCompaction() {
+        TestTasks random = new TestTasks(2, 8);
+        List<Task> live = new ArrayList<>(random.tasks(3000));
+        TaskIndex index = new TaskIndex();
+        index.addAll(live);
+        for (int round = 0; round < 5; round++) {
+            // Больше половины удалений – индекс компактизируется
+            List<Task> removed = new ArrayList<>();
+            for (int i = live.size() - 1; i >= 0; i--) {
+                if (random.random.nextInt(10) < 6) {
+                    removed.add(live.remove(i));
+                }
+            }
+            index.removeAll(removed);
+            List<Task> added = random.tasks(500);
+            index.addAll(added);
+            live.addAll(added);
+            for (int i = 0; i < 50; i++) {
+                List<Integer> filter = random.filter();
+                assertEquals("round " + round + " filter " + filter, bruteForce(live, filter), index.query(filter));
+            }
+        }
+        assertEquals(live.size(), index.size());
+    }
+
+    @Test
+    public void unknownTagMatchesNothing() {
+        TaskIndex index = new TaskIndex();
+        index.addAll(new TestTasks(3, 4).tasks(100));
+        int unused = TagDictionary.getInstance().intern(TestTasks.GROUP, "ни у кого");
+        assertEquals(Collections.emptyList(), index.query(Collections.singletonList(unused)));
+    }
+
+    @Test
+    public void parallelQueryKeepsInsertionOrder() {
+        TestTasks random = new TestTasks(4, 6);
+        // Больше одного куска CHUNK_SLOTS, чтобы MatchTask делился
+        List<Task> tasks = random.tasks(100_000);
+        TaskIndex parallel = new TaskIndex(0);
+        parallel.addAll(tasks);
+        for (int i = 0; i < 20; i++) {
+            List<Integer> filter = random.filter();
+            assertEquals("filter " + filter, bruteForce(tasks, filter), parallel.query(filter));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class TaskQueryEngineTest {
+
+    // Очередь вместо UI-потока: тестовый поток сам выполняет доставку
+    private final BlockingQueue<Runnable> ui = new LinkedBlockingQueue<>();
+    private final TestTasks random = new TestTasks(31, 6);
+    private final List<Task> tasks = random.tasks(20_000);
+    private final TaskIndex index = new TaskIndex();
+    private final TaskQueryEngine engine = new TaskQueryEngine(index, ui::add);
+
+    {
+        index.addAll(tasks);
+    }
+
+    @After
+    public void shutdown() {
+        engine.shutdown();
+    }
+
+    private void runUiUntilDelivered() throws InterruptedException {
+        while (engine.isPending()) {
+            Runnable delivery = ui.poll(10, TimeUnit.SECONDS);
+            assertNotNull("no result delivered", delivery);
+            delivery.run();
+        }
+    }
+
+    private static List<Task> expected(List<Task> tasks, List<Integer> filter, int sortMode) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.hasAllTags(filter)) {
+                result.add(task);
+            }
+        }
+        TaskSorter.sort(result, sortMode);
+        return result;
+    }
+
+    @Test
+    public void onlyLatestQueryIsDelivered() throws InterruptedException {
+        int[] delivered = new int[10];
+        List<List<Task>> results = new ArrayList<>();
+        List<Integer> lastFilter = null;
+        for (int i = 0; i < delivered.length; i++) {
+            int query = i;
+            lastFilter = random.filter();
+            engine.submit(lastFilter, null, TaskSorter.SORT_BY_IMPORTANCE, (result, facets) -> {
+                delivered[query]++;
+                results.add(result);
+            });
+        }
+        runUiUntilDelivered();
+        // Доставки, поставленные в очередь до последнего submit, тоже должны отброситься
+        Runnable stale;
+        while ((stale = ui.poll()) != null) {
+            stale.run();
+        }
+
+        for (int i = 0; i < delivered.length - 1; i++) {
+            assertEquals("query " + i, 0, delivered[i]);
+        }
+        assertEquals(1, delivered[delivered.length - 1]);
+        assertEquals(expected(tasks, lastFilter, TaskSorter.SORT_BY_IMPORTANCE), results.get(0));
+    }
+
+    @Test
+    public void cachedResultIsPatchedByChanges() throws InterruptedException {
+        List<Integer> filter = Collections.singletonList(random.tagPool[0]);
+        List<List<Task>> results = new ArrayList<>();
+        engine.submit(filter, "", TaskSorter.SORT_BY_DATE, (result, facets) -> results.add(result));
+        runUiUntilDelivered();
+
+        // Пачка меньше порога, после которого кэш сбрасывается, а не правится
+        List<Task> live = new ArrayList<>(tasks);
+        List<Task> removed = new ArrayList<>(results.get(0).subList(0, 10));
+        List<Task> added = random.tasks(20);
+        // Добавлена и удалена в одном кадре – в правленом результате её быть не должно
+        Task transientTask = new Task("мимолётная", "", new int[]{random.tagPool[0]});
+        added.add(transientTask);
+        removed.add(transientTask);
+        live.removeAll(removed);
+        live.addAll(added);
+        live.remove(transientTask);
+        index.addAll(added);
+        index.removeAll(removed);
+        engine.onTasksChanged(added, removed);
+
+        long hits = engine.getCache().getHitCount();
+        engine.submit(filter, null, TaskSorter.SORT_BY_DATE, (result, facets) -> results.add(result));
+        runUiUntilDelivered();
+        assertEquals(hits + 1, engine.getCache().getHitCount());
+        assertEquals(expected(live, filter, TaskSorter.SORT_BY_DATE), results.get(1));
+    }
+
+    @Test
+    public void searchTextNarrowsResult() throws InterruptedException {
+        Task needle = new Task("уникальныйзаголовок", "", new int[0]);
+        index.add(needle);
+        List<List<Task>> results = new ArrayList<>();
+        engine.submit(Collections.emptyList(), "уникальн", TaskSorter.SORT_BY_DATE,
+                (result, facets) -> results.add(result));
+        runUiUntilDelivered();
+        assertEquals(Collections.singletonList(needle), results.get(0));
+        assertFalse(engine.isPending());
+        assertTrue(ui.isEmpty());
+    }
+}
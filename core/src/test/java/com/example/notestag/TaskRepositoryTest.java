@@ -0,0 +1,136 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.notestag.store.TaskStore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+public class TaskRepositoryTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    // Кадры: тест сам решает, когда наступает следующий
+    private final Queue<Runnable> frames = new ArrayDeque<>();
+    private final List<TaskRepository.Changes> notifications = new ArrayList<>();
+    private final TestTasks random = new TestTasks(51, 6);
+
+    private TaskRepository repository(TaskStore store) {
+        TaskRepository repository = new TaskRepository(new TaskIndex(), store, frames::add);
+        repository.setListener(notifications::add);
+        return repository;
+    }
+
+    private void nextFrame() {
+        Runnable frame;
+        while ((frame = frames.poll()) != null) {
+            frame.run();
+        }
+    }
+
+    @Test
+    public void thousandAddsInOneFrameDispatchOnce() {
+        TaskRepository repository = repository(null);
+        List<Task> tasks = random.tasks(1000);
+        for (Task task : tasks) {
+            repository.add(task);
+        }
+        assertEquals(1, frames.size());
+        assertTrue(notifications.isEmpty());
+
+        nextFrame();
+        assertEquals(1, notifications.size());
+        assertEquals(tasks, notifications.get(0).added);
+        assertTrue(notifications.get(0).removed.isEmpty());
+        assertEquals(tasks, repository.getIndex().query(Collections.emptyList()));
+
+        nextFrame();
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    public void mixedBatchIsReportedTogether() {
+        TaskRepository repository = repository(null);
+        List<Task> tasks = random.tasks(300);
+        repository.addAll(tasks);
+        nextFrame();
+        notifications.clear();
+
+        List<Task> removed = tasks.subList(0, 100);
+        List<Task> updated = tasks.subList(100, 200);
+        repository.removeAll(removed);
+        repository.setStatus(updated, Task.STATUS_DONE);
+        Task added = random.task();
+        repository.add(added);
+        assertEquals(1, frames.size());
+        nextFrame();
+
+        assertEquals(1, notifications.size());
+        TaskRepository.Changes changes = notifications.get(0);
+        assertEquals(removed, changes.removed);
+        assertEquals(updated, changes.updated);
+        assertEquals(Collections.singletonList(added), changes.added);
+        assertEquals(201, repository.size());
+        assertNull(repository.get(removed.get(0).getId()));
+        for (Task task : updated) {
+            assertEquals(Task.STATUS_DONE, task.getStatus());
+        }
+    }
+
+    @Test
+    public void duplicatesAndForeignTasksAreIgnored() {
+        TaskRepository repository = repository(null);
+        Task task = random.task();
+        repository.add(task);
+        nextFrame();
+        notifications.clear();
+
+        Task sameId = new Task(task.getId(), "другая", "", new int[0], task.getCreatedAt());
+        assertEquals(1, repository.addAll(Arrays.asList(sameId, random.task())));
+        nextFrame();
+        notifications.clear();
+        repository.add(sameId);
+        repository.remove(sameId);
+        repository.setStatus(sameId, Task.STATUS_DONE);
+        assertTrue(frames.isEmpty());
+        assertSame(task, repository.get(task.getId()));
+    }
+
+    @Test
+    public void batchIsWrittenToStore() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        store.load();
+        TaskRepository repository = repository(store);
+        List<Task> tasks = random.tasks(1000);
+        repository.addAll(tasks);
+        repository.removeAll(tasks.subList(0, 10));
+        repository.setStatus(tasks.get(10), Task.STATUS_IN_PROGRESS);
+        store.close();
+
+        TaskStore reopened = new TaskStore(directory);
+        try {
+            List<Task> loaded = reopened.load();
+            assertEquals(990, loaded.size());
+            assertEquals(tasks.get(10).getId(), loaded.get(0).getId());
+            assertEquals(Task.STATUS_IN_PROGRESS, loaded.get(0).getStatus());
+        } finally {
+            reopened.close();
+        }
+    }
+}
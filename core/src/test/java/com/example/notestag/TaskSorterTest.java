@@ -0,0 +1,81 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class TaskSorterTest {
+
+    private static final int[] SORT_MODES = {TaskSorter.SORT_BY_DATE, TaskSorter.SORT_BY_IMPORTANCE,
+            TaskSorter.SORT_BY_URGENCY, TaskSorter.SORT_BY_TITLE, TaskSorter.SORT_BY_SPHERE};
+
+    @Test
+    public void sortMatchesStableComparatorSort() {
+        List<Task> tasks = new TestTasks(11, 6).tasks(3000);
+        Collections.shuffle(tasks, new Random(5));
+        for (int sortMode : SORT_MODES) {
+            List<Task> expected = new ArrayList<>(tasks);
+            expected.sort(TaskSorter.comparator(sortMode));
+            List<Task> actual = new ArrayList<>(tasks);
+            TaskSorter.sort(actual, sortMode);
+            assertEquals("sort mode " + sortMode, expected, actual);
+        }
+    }
+
+    @Test
+    public void groupSortOrdersByRankWithinAnyGroup() {
+        List<Task> tasks = new TestTasks(14, 6).tasks(3000);
+        Collections.shuffle(tasks, new Random(7));
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] groups = {dictionary.findGroup(TestTasks.GROUP), dictionary.findGroup(TagDictionary.GROUP_SPHERE)};
+        for (int group : groups) {
+            List<Task> expected = new ArrayList<>(tasks);
+            expected.sort(Comparator.comparingInt(task -> TaskSorter.groupRank(task, group)));
+            List<Task> actual = new ArrayList<>(tasks);
+            TaskSorter.sortByGroup(actual, group);
+            assertEquals("group " + group, expected, actual);
+            assertEquals(Integer.MAX_VALUE, TaskSorter.groupRank(actual.get(actual.size() - 1), group));
+        }
+    }
+
+    @Test
+    public void insertionPointKeepsListSortedAndIndexOfFindsTask() {
+        TestTasks random = new TestTasks(12, 6);
+        List<Task> tasks = random.tasks(500);
+        for (int sortMode : SORT_MODES) {
+            List<Task> sorted = new ArrayList<>(tasks);
+            TaskSorter.sort(sorted, sortMode);
+            for (int i = 0; i < 100; i++) {
+                Task task = random.task();
+                sorted.add(TaskSorter.insertionPoint(sorted, task, sortMode), task);
+            }
+            List<Task> resorted = new ArrayList<>(sorted);
+            TaskSorter.sort(resorted, sortMode);
+            assertEquals("sort mode " + sortMode, resorted, sorted);
+            for (int i = 0; i < sorted.size(); i += 7) {
+                assertSame(sorted.get(i), sorted.get(TaskSorter.indexOf(sorted, sorted.get(i), sortMode)));
+            }
+            assertEquals(-1, TaskSorter.indexOf(sorted, random.task(), sortMode));
+        }
+    }
+
+    @Test
+    public void parallelSortMatchesSequentialSort() {
+        List<Task> tasks = new TestTasks(13, 6).tasks(50_000);
+        Collections.shuffle(tasks, new Random(6));
+        for (int sortMode : SORT_MODES) {
+            List<Task> sequential = new ArrayList<>(tasks);
+            TaskSorter.sort(sequential, sortMode, Integer.MAX_VALUE);
+            List<Task> parallel = new ArrayList<>(tasks);
+            TaskSorter.sort(parallel, sortMode, 0);
+            assertEquals("sort mode " + sortMode, sequential, parallel);
+        }
+    }
+}
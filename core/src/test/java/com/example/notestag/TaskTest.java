@@ -0,0 +1,69 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskTest {
+
+    private static final int TASKS = 100_000;
+
+    @Test
+    public void tagsDecodeFromDictionary() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int high = dictionary.intern(TagDictionary.GROUP_IMPORTANCE, "Высокая");
+        int custom = dictionary.intern(TestTasks.GROUP, "задача");
+        Task task = new Task("теги", "", new int[]{high, custom});
+        assertEquals(Arrays.asList("Высокая", "задача"), task.getTags());
+    }
+
+    /**
+     * 100k задач по три тега: сами задачи и чтение их тегов не должны держать в куче
+     * строк и списков на задачу – только массивы id.
+     */
+    @Test
+    public void tagsDoNotGrowRetainedHeap() {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] pool = new int[16];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = dictionary.intern(TestTasks.GROUP, "объём" + i);
+        }
+        long before = usedHeap();
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            int[] tagIds = {pool[i % 16], pool[(i + 5) % 16], pool[(i + 11) % 16]};
+            tasks.add(new Task(Integer.toString(i), "", tagIds));
+        }
+        long withTasks = usedHeap();
+        int names = 0;
+        for (Task task : tasks) {
+            names += task.getTags().size();
+        }
+        long afterGetTags = usedHeap();
+        assertEquals(3 * TASKS, names);
+
+        long perTask = (withTasks - before) / TASKS;
+        // Task с полями, массив из трёх int и короткий заголовок – меньше 200 байт
+        assertTrue("bytes per task: " + perTask, perTask < 200);
+        // Закэшированные списки заняли бы больше 50 байт на задачу, то есть 5 МБ
+        long growth = afterGetTags - withTasks;
+        assertTrue("heap growth after getTags(): " + growth, growth < 1_000_000);
+        assertEquals(TASKS, tasks.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Несколько проходов: одного System.gc() бывает мало, берём наименьшее значение
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
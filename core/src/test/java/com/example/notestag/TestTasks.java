@@ -0,0 +1,86 @@
+package com.example.notestag;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Случайные задачи с повторяемым seed для сверки индексов и кэшей с перебором.
+ * Теги – свои из группы "Тест" плюс встроенные важность, срочность и сфера, даты
+ * из узкого диапазона, чтобы были равные ключи сортировки.
+ */
+final class TestTasks {
+
+    static final String GROUP = "Тест";
+    // id задач разных наборов не пересекаются
+    private static final AtomicLong NEXT_ID = new AtomicLong(1_000_000_000L);
+    private static final String[] WORDS = {"отчёт", "квартал", "дом", "купить", "молоко", "звонок",
+            "врач", "план", "код", "ревью", "Отпуск", "билеты"};
+
+    final Random random;
+    final int[] tagPool;
+
+    TestTasks(long seed, int customTags) {
+        random = new Random(seed);
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<Integer> pool = new ArrayList<>();
+        for (int i = 0; i < customTags; i++) {
+            pool.add(dictionary.intern(GROUP, "тег" + i));
+        }
+        pool.add(dictionary.intern(TagDictionary.GROUP_IMPORTANCE, "Высокая"));
+        pool.add(dictionary.intern(TagDictionary.GROUP_IMPORTANCE, "Низкая"));
+        pool.add(dictionary.intern(TagDictionary.GROUP_URGENCY, "Горит"));
+        pool.add(dictionary.intern(TagDictionary.GROUP_SPHERE, "Работа"));
+        pool.add(dictionary.intern(TagDictionary.GROUP_SPHERE, "Дом"));
+        tagPool = pool.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    Task task() {
+        Set<Integer> tags = new LinkedHashSet<>();
+        int tagCount = random.nextInt(4);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(tagPool[random.nextInt(tagPool.length)]);
+        }
+        int[] tagIds = tags.stream().mapToInt(Integer::intValue).toArray();
+        Task task = new Task(NEXT_ID.getAndIncrement(), words(1 + random.nextInt(3)),
+                words(random.nextInt(3)), tagIds, 1_000_000L + random.nextInt(500));
+        task.setStatus(random.nextInt(3));
+        return task;
+    }
+
+    List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(task());
+        }
+        return tasks;
+    }
+
+    /** 0–3 разных тега из пула. */
+    List<Integer> filter() {
+        Set<Integer> tags = new LinkedHashSet<>();
+        int size = random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            tags.add(tagPool[random.nextInt(tagPool.length)]);
+        }
+        return new ArrayList<>(tags);
+    }
+
+    String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word());
+        }
+        return text.toString();
+    }
+}
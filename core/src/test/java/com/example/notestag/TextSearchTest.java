@@ -0,0 +1,82 @@
+package com.example.notestag;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TextSearchTest {
+
+    private static boolean matches(Task task, String searchText) {
+        List<String> words = new ArrayList<>(TextIndex.tokenize(task.getTitle()));
+        words.addAll(TextIndex.tokenize(task.getDescription()));
+        for (String prefix : TextIndex.tokenize(searchText)) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Task> bruteForce(List<Task> tasks, List<Integer> filter, String searchText) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.hasAllTags(filter) && matches(task, searchText)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void tokenizeLowercasesAndFoldsYo() {
+        assertEquals(Arrays.asList("ежик", "в", "тумане", "2024"), TextIndex.tokenize("Ёжик в ТУМАНЕ, 2024!"));
+        assertEquals(Collections.emptyList(), TextIndex.tokenize("  ,.- "));
+        assertEquals(Collections.emptyList(), TextIndex.tokenize(null));
+    }
+
+    @Test
+    public void searchMatchesPrefixScan() {
+        TestTasks random = new TestTasks(41, 6);
+        List<Task> live = new ArrayList<>(random.tasks(4000));
+        TaskIndex index = new TaskIndex();
+        index.addAll(live);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                List<Integer> filter = random.random.nextBoolean() ? random.filter() : Collections.emptyList();
+                String word = random.word();
+                // Случайный префикс существующего слова и иногда второе слово
+                String searchText = word.substring(0, 1 + random.random.nextInt(word.length()));
+                if (random.random.nextInt(3) == 0) {
+                    searchText += " " + random.word().substring(0, 1);
+                }
+                assertEquals("'" + searchText + "' " + filter,
+                        bruteForce(live, filter, searchText), index.query(filter, searchText));
+            }
+            List<Task> removed = new ArrayList<>(live.subList(0, live.size() / 3));
+            live.removeAll(removed);
+            index.removeAll(removed);
+        }
+    }
+
+    @Test
+    public void blankSearchFiltersOnlyByTags() {
+        TestTasks random = new TestTasks(42, 4);
+        List<Task> tasks = random.tasks(500);
+        TaskIndex index = new TaskIndex();
+        index.addAll(tasks);
+        List<Integer> filter = random.filter();
+        assertEquals(index.query(filter), index.query(filter, " ,, "));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.notestag.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HistogramTest {
+
+    @Before
+    public void enable() {
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void disable() {
+        Metrics.setEnabled(false);
+        Metrics.setTracer(null);
+    }
+
+    @Test
+    public void bucketBoundsContainValue() {
+        List<Long> values = new ArrayList<>();
+        for (long value = 0; value < 5000; value++) {
+            values.add(value);
+        }
+        for (int shift = 12; shift < 63; shift++) {
+            values.add((1L << shift) - 1);
+            values.add(1L << shift);
+            values.add((1L << shift) + 1);
+        }
+        values.add(Long.MAX_VALUE);
+        for (long value : values) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(value + " above bucket " + bucket, value <= Histogram.upperBound(bucket));
+            if (bucket > 0) {
+                assertTrue(value + " below bucket " + bucket, value > Histogram.upperBound(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        Histogram histogram = new Histogram("test", false);
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        for (double percentile : new double[] {1, 25, 50, 90, 99, 99.9}) {
+            long exact = (long) Math.ceil(10_000 * percentile / 100);
+            long reported = histogram.percentile(percentile);
+            assertTrue(percentile + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(percentile + ": " + reported + " vs " + exact, reported <= exact * 1.0625);
+        }
+        assertEquals(10_000, histogram.percentile(100));
+    }
+
+    @Test
+    public void disabledHistogramRecordsNothing() {
+        Histogram histogram = new Histogram("test", true);
+        Metrics.setEnabled(false);
+        histogram.record(42);
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, Metrics.begin("section"));
+    }
+
+    @Test
+    public void resetAndDump() {
+        Histogram histogram = new Histogram("test.time", true);
+        histogram.record(1500);
+        histogram.record(-5);
+        StringBuilder out = new StringBuilder();
+        histogram.dump(out);
+        assertTrue(out.toString(), out.toString().startsWith("test.time: count=2 "));
+        assertTrue(out.toString(), out.toString().contains("max=1.5 us"));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void sectionsReachTracerAndHistogram() {
+        List<String> trace = new ArrayList<>();
+        Metrics.setTracer(new Metrics.Tracer() {
+            @Override
+            public void begin(String section) {
+                trace.add("begin " + section);
+            }
+
+            @Override
+            public void end() {
+                trace.add("end");
+            }
+        });
+        Histogram histogram = new Histogram("section", true);
+        Metrics.end(histogram, Metrics.begin("section"));
+        assertEquals(1, histogram.getCount());
+        assertEquals(2, trace.size());
+        assertEquals("begin section", trace.get(0));
+    }
+}
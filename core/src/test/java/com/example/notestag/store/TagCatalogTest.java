@@ -0,0 +1,107 @@
+package com.example.notestag.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.notestag.TagDictionary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class TagCatalogTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final TagDictionary dictionary = TagDictionary.getInstance();
+
+    private static int storedCount(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readInt();
+            in.readInt();
+            return in.readInt();
+        }
+    }
+
+    private void writeCatalog(File file, int... ids) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x4E544147);
+            out.writeInt(1);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeInt(i);
+                out.writeUTF(dictionary.getGroup(ids[i]));
+                out.writeUTF(dictionary.getName(ids[i]));
+                out.writeInt(dictionary.getRank(ids[i]));
+            }
+        }
+    }
+
+    @Test
+    public void savedCatalogLoadsBackWithSameIds() throws IOException {
+        File directory = new File(folder.getRoot(), "tasks");
+        dictionary.intern("Каталог", "сохранённый");
+        TagCatalog catalog = new TagCatalog(directory);
+        catalog.save();
+        File file = new File(directory, "tags.catalog");
+        assertEquals(dictionary.size(), storedCount(file));
+
+        TagCatalog reloaded = new TagCatalog(directory);
+        reloaded.load();
+        // Новых тегов нет – второй save файл не трогает
+        assertTrue(file.delete());
+        reloaded.save();
+        assertFalse(file.exists());
+
+        int added = dictionary.intern("Каталог", "после загрузки");
+        reloaded.save();
+        assertEquals(added + 1, storedCount(file));
+    }
+
+    @Test
+    public void catalogWithOtherIdsIsRejectedAndRewritten() throws IOException {
+        File directory = folder.newFolder("tasks");
+        File file = new File(directory, "tags.catalog");
+        int first = dictionary.intern("Каталог", "первый");
+        int second = dictionary.intern("Каталог", "второй");
+        // Каталог из другого процесса: те же теги, но под другими id
+        writeCatalog(file, second, first);
+
+        TagCatalog catalog = new TagCatalog(directory);
+        try {
+            catalog.load();
+            fail("ids do not match the dictionary");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("does not match"));
+        }
+        catalog.save();
+        assertEquals(dictionary.size(), storedCount(file));
+        new TagCatalog(directory).load();
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignFileIsRejected() throws IOException {
+        File directory = folder.newFolder("tasks");
+        try (FileOutputStream out = new FileOutputStream(new File(directory, "tags.catalog"))) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        new TagCatalog(directory).load();
+    }
+
+    @Test
+    public void missingCatalogLoadsNothing() throws IOException {
+        int size = dictionary.size();
+        new TagCatalog(folder.newFolder("empty")).load();
+        assertEquals(size, dictionary.size());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.notestag.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+import com.example.notestag.TaskCodec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static Task task(String title, String... tags) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] tagIds = new int[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            tagIds[i] = dictionary.intern("Хранилище", tags[i]);
+        }
+        return new Task(title, "описание " + title, tagIds);
+    }
+
+    private static void assertSameTasks(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Task want = expected.get(i);
+            Task got = actual.get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getDescription(), got.getDescription());
+            assertEquals(want.getCreatedAt(), got.getCreatedAt());
+            assertEquals(want.getStatus(), got.getStatus());
+            assertArrayEquals(want.getTagIds(), got.getTagIds());
+        }
+    }
+
+    private List<Task> reopen(File directory) throws IOException {
+        TaskStore store = new TaskStore(directory);
+        try {
+            return store.load();
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void logReplaysCreatesStatusesAndDeletes() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        assertTrue(store.load().isEmpty());
+        Task first = task("первая", "a");
+        Task second = task("вторая", "a", "b");
+        Task third = task("третья");
+        store.appendCreate(first);
+        store.appendCreate(second);
+        store.appendCreate(third);
+        second.setStatus(Task.STATUS_DONE);
+        store.appendStatus(second);
+        store.appendDelete(first);
+        store.close();
+
+        assertSameTasks(Arrays.asList(second, third), reopen(directory));
+    }
+
+    @Test
+    public void tornTailIsCutAndLogStaysWritable() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        store.load();
+        Task kept = task("целая");
+        store.appendCreate(kept);
+        store.close();
+
+        // Запись, оборванная посреди данных, как после сбоя питания
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        RecordFormat.write(new DataOutputStream(record), RecordFormat.CREATE, TaskCodec.encode(task("оборванная")));
+        File log = new File(directory, "tasks.log");
+        long intactLength = log.length();
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write(record.toByteArray(), 0, record.size() / 2);
+        }
+
+        store = new TaskStore(directory);
+        assertSameTasks(Arrays.asList(kept), store.load());
+        assertEquals(intactLength, log.length());
+        Task added = task("после сбоя");
+        store.appendCreate(added);
+        store.close();
+
+        assertSameTasks(Arrays.asList(kept, added), reopen(directory));
+    }
+
+    @Test
+    public void compactionKeepsLiveTasks() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        store.load();
+        List<Task> live = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            Task task = task("задача " + i, "t" + (i % 5));
+            store.appendCreate(task);
+            live.add(task);
+            if (i % 3 == 0) {
+                store.appendDelete(live.remove(live.size() / 2));
+            }
+        }
+        store.close();
+
+        assertTrue(new File(directory, "tasks.snapshot").exists());
+        assertSameTasks(live, reopen(directory));
+    }
+
+    @Test
+    public void unknownStatusInLogIsCorruption() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        store.load();
+        Task task = task("статус");
+        store.appendCreate(task);
+        store.close();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeLong(task.getId());
+        data.writeByte(7);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(directory, "tasks.log"), true))) {
+            RecordFormat.write(out, RecordFormat.STATUS, payload.toByteArray());
+        }
+
+        try {
+            reopen(directory);
+            fail("status 7 must not load");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("status"));
+        }
+    }
+
+    @Test
+    public void truncatedSnapshotIsCorruption() throws IOException {
+        File directory = folder.newFolder("tasks");
+        TaskStore store = new TaskStore(directory);
+        store.load();
+        for (int i = 0; i < 1200; i++) {
+            store.appendCreate(task("задача " + i));
+        }
+        store.close();
+
+        File snapshot = new File(directory, "tasks.snapshot");
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        try {
+            reopen(directory);
+            fail("truncated snapshot must not load");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("snapshot"));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.notestag.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.notestag.TagDictionary;
+import com.example.notestag.Task;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TaskTransferTest {
+
+    private static List<Task> tasks(int count) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] tagIds = {dictionary.intern("Перенос", "тег " + (i % 7)), dictionary.intern("Перенос \"кавычки\"", "\\")};
+            Task task = new Task(500_000_000L + i, "задача " + i + "\n\t\u0001😀", i % 2 == 0 ? "" : "описание", tagIds, 1000L * i);
+            task.setStatus(i % 3);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static List<List<Task>> importAll(byte[] bytes, int chunkSize) throws IOException {
+        List<List<Task>> chunks = new ArrayList<>();
+        int count = TaskTransfer.importTasks(new ByteArrayInputStream(bytes), chunkSize, chunks::add);
+        int total = 0;
+        for (List<Task> chunk : chunks) {
+            total += chunk.size();
+        }
+        assertEquals(count, total);
+        return chunks;
+    }
+
+    private static void assertSameTasks(List<Task> expected, List<List<Task>> chunks) {
+        List<Task> actual = new ArrayList<>();
+        for (List<Task> chunk : chunks) {
+            actual.addAll(chunk);
+        }
+        assertEquals(expected.size(), actual.size());
+        Set<Long> ids = new HashSet<>();
+        for (Task task : expected) {
+            ids.add(task.getId());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Task want = expected.get(i);
+            Task got = actual.get(i);
+            // Импорт выдаёт новые id, не совпадающие ни с исходными, ни друг с другом
+            assertTrue(ids.add(got.getId()));
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getDescription(), got.getDescription());
+            assertEquals(want.getCreatedAt(), got.getCreatedAt());
+            assertEquals(want.getStatus(), got.getStatus());
+            assertArrayEquals(want.getTagIds(), got.getTagIds());
+        }
+    }
+
+    @Test
+    public void jsonLinesRoundTripInChunks() throws IOException {
+        List<Task> tasks = tasks(2500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskTransfer.exportJsonLines(tasks, out);
+        List<List<Task>> chunks = importAll(out.toByteArray(), 1000);
+        assertEquals(3, chunks.size());
+        assertEquals(500, chunks.get(2).size());
+        assertSameTasks(tasks, chunks);
+    }
+
+    @Test
+    public void binaryRoundTripInChunks() throws IOException {
+        List<Task> tasks = tasks(2500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskTransfer.exportBinary(tasks, out);
+        List<List<Task>> chunks = importAll(out.toByteArray(), 1000);
+        assertEquals(3, chunks.size());
+        assertSameTasks(tasks, chunks);
+    }
+
+    @Test
+    public void jsonWithUnknownStatusIsRejected() {
+        byte[] json = "{\"id\":1,\"status\":0,\"title\":\"a\"}\n{\"id\":2,\"status\":5,\"title\":\"b\"}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        try {
+            importAll(json, 10);
+            fail("status 5 must not import");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Unknown status 5"));
+        }
+    }
+
+    @Test
+    public void truncatedBinaryIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskTransfer.exportBinary(tasks(3), out);
+        byte[] bytes = out.toByteArray();
+        byte[] truncated = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        try {
+            importAll(truncated, 10);
+            fail("truncated export must not import");
+        } catch (IOException expected) {
+            // ожидаемо
+        }
+    }
+
+    @Test
+    public void sinkCanStopImport() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskTransfer.exportJsonLines(tasks(100), out);
+        List<List<Task>> accepted = new ArrayList<>();
+        try {
+            TaskTransfer.importTasks(new ByteArrayInputStream(out.toByteArray()), 10, chunk -> {
+                accepted.add(chunk);
+                if (accepted.size() == 2) {
+                    throw new InterruptedIOException("cancelled");
+                }
+            });
+            fail("import must stop");
+        } catch (InterruptedIOException expected) {
+            assertEquals(2, accepted.size());
+        }
+    }
+}
@@ -16,4 +16,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "notestag"
 include(":app")
+include(":core")
+include(":benchmarks")
 